@@ -0,0 +1,74 @@
+package com.aiSeduction.demo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Login cost at fixed BCrypt costs: AuthService.authenticateUser end to end (through the
+// hashing pool) and the bare BCrypt verification it wraps. The repository is an in-memory stub.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private static final String EMAIL = "bench@example.com";
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    public int cost;
+
+    private PasswordHashingService passwordHashingService;
+    private AuthService authService;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordHashingService = new PasswordHashingService(new SimpleMeterRegistry());
+        // min == max pins the cost instead of calibrating it
+        ReflectionTestUtils.setField(passwordHashingService, "targetHashMs", 250L);
+        ReflectionTestUtils.setField(passwordHashingService, "minCost", cost);
+        ReflectionTestUtils.setField(passwordHashingService, "maxCost", cost);
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 0);
+        ReflectionTestUtils.setField(passwordHashingService, "queueCapacity", 64);
+        ReflectionTestUtils.setField(passwordHashingService, "waitTimeoutMs", 10_000L);
+        ReflectionTestUtils.invokeMethod(passwordHashingService, "init");
+
+        hash = passwordHashingService.encode(PASSWORD);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setUsername("bench");
+        user.setPassword(hash);
+
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByEmail" -> EMAIL.equals(args[0]) ? Optional.of(user) : Optional.empty();
+                    case "save" -> args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        authService = new AuthService(userRepository, passwordHashingService, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(passwordHashingService, "shutdown");
+    }
+
+    @Benchmark
+    public User authenticateUser() {
+        return authService.authenticateUser(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return passwordHashingService.encoder().matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,93 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Parsing the TikTok and Gemini responses we handle per call: typed records read from a stream
+// with the shared mapper, against the former readTree-into-JsonNode approach.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+    private static final byte[] TOKEN_RESPONSE = ("{\"access_token\":\"act.example12345Example12345Example\","
+            + "\"expires_in\":86400,\"open_id\":\"afd97af1-b87b-48b9-ac98-410aghda5344\","
+            + "\"refresh_expires_in\":31536000,\"refresh_token\":\"rft.example12345Example12345Example\","
+            + "\"scope\":\"user.info.basic,video.publish\",\"token_type\":\"Bearer\"}").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] USER_INFO_RESPONSE = ("{\"data\":{\"user\":{\"open_id\":\"723f24d7-e717-40f8-a2b6-cb8464cd23b4\","
+            + "\"union_id\":\"c9c60f44-a68e-4f5d-84dd-ce22faeb0ba1\",\"avatar_url\":\"https://p19-sign.tiktokcdn-us.com/avatar.jpeg\","
+            + "\"username\":\"tiktok_user\",\"display_name\":\"TikTok User\"}},"
+            + "\"error\":{\"code\":\"ok\",\"message\":\"\",\"log_id\":\"20220829194722CBE87ED59D524E727021\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] GEMINI_RESPONSE = ("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\""
+            + "Score: 15/20\\nFeedback: Confident and playful, but a little long.\\n"
+            + "Corrected/Improved Version:\\n**Option 1 (Bolder):** \\\"You look like you know the best taco truck in town.\\\"\"}],"
+            + "\"role\":\"model\"},\"finishReason\":\"STOP\",\"index\":0}],"
+            + "\"usageMetadata\":{\"promptTokenCount\":92,\"candidatesTokenCount\":48,\"totalTokenCount\":140}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    // What each service used to hold: its own default mapper, used for readTree on the body String
+    private ObjectMapper treeMapper;
+    private ObjectReader tokenReader;
+    private ObjectReader userInfoReader;
+    private ObjectReader geminiReader;
+    private GeminiApi.GenerateRequest geminiRequest;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the Boot-configured mapper the application injects
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        treeMapper = new ObjectMapper();
+        tokenReader = objectMapper.readerFor(TikTokApi.TokenResponse.class);
+        userInfoReader = objectMapper.readerFor(TikTokApi.UserInfoResponse.class);
+        geminiReader = objectMapper.readerFor(GeminiApi.GenerateResponse.class);
+        geminiRequest = GeminiApi.GenerateRequest.of("Evaluate \"this\" answer,\nplease", null);
+    }
+
+    @Benchmark
+    public TikTokApi.TokenResponse tiktokTokenTyped() throws IOException {
+        return tokenReader.readValue(new ByteArrayInputStream(TOKEN_RESPONSE));
+    }
+
+    @Benchmark
+    public TikTokApi.UserInfoResponse tiktokUserInfoTyped() throws IOException {
+        return userInfoReader.readValue(new ByteArrayInputStream(USER_INFO_RESPONSE));
+    }
+
+    @Benchmark
+    public String tiktokUserInfoTree() throws IOException {
+        JsonNode root = treeMapper.readTree(new String(USER_INFO_RESPONSE, StandardCharsets.UTF_8));
+        return root.get("data").get("user").get("open_id").asText();
+    }
+
+    @Benchmark
+    public String geminiResponseTyped() throws IOException {
+        GeminiApi.GenerateResponse response = geminiReader.readValue(new ByteArrayInputStream(GEMINI_RESPONSE));
+        return response.texts().get(0);
+    }
+
+    @Benchmark
+    public String geminiResponseTree() throws IOException {
+        JsonNode root = treeMapper.readTree(new String(GEMINI_RESPONSE, StandardCharsets.UTF_8));
+        return root.path("candidates").get(0).path("content").path("parts").get(0).path("text").asText();
+    }
+
+    @Benchmark
+    public byte[] geminiRequestSerialize() throws IOException {
+        return objectMapper.writeValueAsBytes(geminiRequest);
+    }
+}
@@ -0,0 +1,72 @@
+package com.aiSeduction.demo;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-request JWT cost: the old path (key + parser rebuilt, token verified three times)
+// against one verification into JwtClaims, with and without the verified-token LRU.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    private JwtUtil cachedJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedJwtUtil = jwtUtil(10_000);
+        uncachedJwtUtil = jwtUtil(0);
+        user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark_user");
+        token = cachedJwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncachedJwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Long rebuiltParserThreeVerifications() {
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload();
+        String username = claims.getSubject();
+        Long userId = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload().get("userId", Long.class);
+        return username.length() + userId;
+    }
+
+    @Benchmark
+    public boolean validateTokenUncached() {
+        return uncachedJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public boolean validateTokenCacheHit() {
+        return cachedJwtUtil.validateToken(token);
+    }
+
+    private static JwtUtil jwtUtil(int cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86400000);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
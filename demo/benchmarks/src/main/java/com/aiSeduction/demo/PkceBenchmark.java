@@ -0,0 +1,50 @@
+package com.aiSeduction.demo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of building the PKCE pair for every /auth/tiktok request, with and without the pool
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PkceBenchmark {
+
+    private String verifier;
+    private PkceGenerator pooled;
+
+    @Setup
+    public void setUp() {
+        verifier = PkceGenerator.generateCodeVerifier();
+        PkceStateConfig config = new PkceStateConfig();
+        config.setPoolSize(1 << 20);
+        pooled = new PkceGenerator(config);
+        pooled.warm();
+    }
+
+    @Benchmark
+    public String generateCodeVerifier() {
+        return PkceGenerator.generateCodeVerifier();
+    }
+
+    @Benchmark
+    public String generateCodeChallenge() {
+        return PkceGenerator.generateCodeChallenge(verifier);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateCodeVerifierContended() {
+        return PkceGenerator.generateCodeVerifier();
+    }
+
+    // Pool drained faster than the benchmark refills it, so this includes the inline fallback
+    @Benchmark
+    @Threads(8)
+    public PkceGenerator.PkcePair nextPooled() {
+        return pooled.next();
+    }
+}
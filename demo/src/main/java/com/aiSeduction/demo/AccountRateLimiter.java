@@ -0,0 +1,61 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+// One token bucket per TikTok account, sized to the per-user upload quota. Work over the quota
+// is not rejected: it is parked on the task scheduler until its booked token comes up, so a
+// single account never sees a 429 while other accounts keep going at full speed.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccountRateLimiter {
+
+    private final TikTokUploadConfig uploadConfig;
+    private final TaskScheduler taskScheduler;
+
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public Duration reserve(Long userId) {
+        return buckets.computeIfAbsent(userId, id -> new TokenBucket(
+                uploadConfig.getRateLimit().getUploadsPerWindow(),
+                uploadConfig.getRateLimit().getWindow())).reserve();
+    }
+
+    // Runs task on executor as soon as userId's quota allows it and returns how long that is from now.
+    // A deferred task is handed to the executor from a scheduler thread, where a rejection would be
+    // lost, so rejections on either path go to onRejected instead of being thrown.
+    public Duration runWhenAllowed(Long userId, Executor executor, Runnable task,
+                                   Consumer<RejectedExecutionException> onRejected) {
+        Duration wait = reserve(userId);
+        if (wait.isZero()) {
+            execute(executor, task, onRejected);
+            return wait;
+        }
+        log.debug("Upload for user {} deferred {} ms by rate limit", userId, wait.toMillis());
+        try {
+            taskScheduler.schedule(() -> execute(executor, task, onRejected), Instant.now().plus(wait));
+        } catch (RejectedExecutionException e) {
+            onRejected.accept(e);
+        }
+        return wait;
+    }
+
+    private static void execute(Executor executor, Runnable task, Consumer<RejectedExecutionException> onRejected) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            onRejected.accept(e);
+        }
+    }
+}
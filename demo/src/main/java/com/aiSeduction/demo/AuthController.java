@@ -6,13 +6,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -23,14 +25,16 @@ public class AuthController {
     private final AuthService authService;
     private final TikTokService tiktokService;
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserExistenceCache userExistenceCache;
+    private final LoginTicketService loginTicketService;
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
         try {
             User user = authService.authenticateUser(request.getEmail(), request.getPassword());
-            String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+            String token = jwtUtil.generateToken(user);
             log.info("Successful login for user: {}", user.getId());
             return ResponseEntity.ok(new AuthResponse(token, new UserDto(user)));
         } catch (Exception e) {
@@ -44,7 +48,7 @@ public class AuthController {
         log.info("Registration attempt for email: {}, username: {}", request.getEmail(), request.getUsername());
         try {
             User user = authService.registerUser(request.getEmail(), request.getPassword(), request.getUsername());
-            String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+            String token = jwtUtil.generateToken(user);
             log.info("Successful registration for user: {}", user.getId());
             return ResponseEntity.ok(new AuthResponse(token, new UserDto(user)));
         } catch (Exception e) {
@@ -53,6 +57,37 @@ public class AuthController {
         }
     }
 
+    // Advisory only: registration still relies on the unique constraints
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> availability(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String username) {
+        if ((email == null || email.isBlank()) && (username == null || username.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        if (email != null && !email.isBlank()) {
+            response.put("emailAvailable", !userExistenceCache.emailTaken(email));
+        }
+        if (username != null && !username.isBlank()) {
+            response.put("usernameAvailable", !userExistenceCache.usernameTaken(username));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@AuthenticationPrincipal JwtClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!tokenRevocationService.isEnabled()) {
+            // Stateless tokens simply expire; the client drops its copy
+            return ResponseEntity.noContent().build();
+        }
+        tokenRevocationService.revoke(claims);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/tiktok")
     public ResponseEntity<String> getTikTokAuthUrl() {
         log.info("Request for TikTok auth URL");
@@ -76,7 +111,7 @@ public class AuthController {
             HttpServletRequest request) {
 
         log.info("TikTok callback received - code: {}, state: {}, error: {}, error_description: {}", 
-                code, state, error, error_description);
+                OutboundMetrics.mask(code), state, error, error_description);
 
         // Handle TikTok errors first - but continue with hardcoded user for testing
         if (error != null && "access_denied".equals(error)) {
@@ -101,9 +136,21 @@ public class AuthController {
             // Continue with hardcoded user creation
         }
 
+        if (loginTicketService.isEnabled()) {
+            // Returns before talking to TikTok; the frontend picks the JWT up from the ticket
+            LoginTicket ticket = loginTicketService.submit(code, state);
+            // Never the token itself, even if the exchange already finished: that is handed out once, by the ticket
+            Map<String, Object> response = new HashMap<>();
+            response.put("ticket", ticket.getId());
+            response.put("status", LoginTicket.Status.PENDING.name());
+            response.put("pollUrl", "/auth/tiktok/tickets/" + ticket.getId());
+            response.put("eventsUrl", "/auth/tiktok/tickets/" + ticket.getId() + "/events");
+            return ResponseEntity.accepted().body(response);
+        }
+
         try {
             User user = tiktokService.handleTikTokCallback(code, state);
-            String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+            String token = jwtUtil.generateToken(user);
             log.info("Successful TikTok login for user: {}", user.getId());
             
             Map<String, Object> response = new HashMap<>();
@@ -113,6 +160,7 @@ public class AuthController {
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
+            CircuitOpenException.rethrowIfPresent(e);
             log.error("Failed to handle TikTok callback", e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "authentication_failed");
@@ -122,23 +170,20 @@ public class AuthController {
         }
     }
 
-    // Add endpoint to get first user for testing
-    @GetMapping("/first-user")
-    public ResponseEntity<?> getFirstUser() {
-        try {
-            Optional<User> firstUser = userRepository.findAll().stream().findFirst();
-            if (firstUser.isPresent()) {
-                User user = firstUser.get();
-                String token = jwtUtil.generateToken(user.getUsername(), user.getId());
-                return ResponseEntity.ok(new AuthResponse(token, new UserDto(user)));
-            } else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("message", "No users found in database");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-            }
-        } catch (Exception e) {
-            log.error("Error getting first user", e);
-            throw new RuntimeException("Failed to get first user", e);
-        }
+    // 202 while the exchange is running, then 200 with the JWT (or 500) exactly once
+    @GetMapping("/tiktok/tickets/{id}")
+    public ResponseEntity<Map<String, Object>> pollLoginTicket(@PathVariable String id) {
+        return loginTicketService.poll(id)
+                .map(snapshot -> switch (snapshot.status()) {
+                    case PENDING -> ResponseEntity.accepted().body(snapshot.response());
+                    case COMPLETED -> ResponseEntity.ok(snapshot.response());
+                    case FAILED -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(snapshot.response());
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/tiktok/tickets/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeLoginTicket(@PathVariable String id) {
+        return loginTicketService.subscribe(id);
     }
-}
\ No newline at end of file
+}
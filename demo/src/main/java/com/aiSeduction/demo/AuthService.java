@@ -4,41 +4,78 @@ package com.aiSeduction.demo;
 // import com.tiktokscheduler.entity.User;
 // import com.tiktokscheduler.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AuthService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UserExistenceCache userExistenceCache;
     
     public User authenticateUser(String email, String password) {
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
         
+        // Bring older hashes up to the calibrated cost while we have the plain password
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHashingService.encode(password));
+            user.setUpdatedAt(LocalDateTime.now());
+            user = userRepository.save(user);
+            log.info("Rehashed password for user {} at cost {}", user.getId(), passwordHashingService.getCost());
+        }
+        
         return user;
     }
     
     public User registerUser(String email, String password, String username) {
-        if (userRepository.existsByEmail(email)) {
-            throw new RuntimeException("Email already registered");
+        // Fail fast before spending a BCrypt hash; a bloom miss answers without touching the database
+        if (userExistenceCache.emailTaken(email)) {
+            throw new DuplicateAccountException("Email already registered");
         }
-        
-        if (userRepository.existsByUsername(username)) {
-            throw new RuntimeException("Username already taken");
+        if (userExistenceCache.usernameTaken(username)) {
+            throw new DuplicateAccountException("Username already taken");
         }
         
         User user = new User();
         user.setEmail(email);
         user.setUsername(username);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHashingService.encode(password));
         
-        return userRepository.save(user);
+        // The unique constraints are the real check; concurrent registrations race to this insert
+        try {
+            User saved = userRepository.saveAndFlush(user);
+            userExistenceCache.add(saved);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e);
+        }
+    }
+    
+    private RuntimeException translateDuplicate(DataIntegrityViolationException e) {
+        String constraint = null;
+        if (e.getCause() instanceof ConstraintViolationException violation) {
+            constraint = violation.getConstraintName();
+        }
+        // Some drivers only put the constraint name in the message
+        String detail = constraint != null ? constraint : String.valueOf(e.getMostSpecificCause().getMessage());
+        if (detail.contains(User.EMAIL_CONSTRAINT)) {
+            return new DuplicateAccountException("Email already registered");
+        }
+        if (detail.contains(User.USERNAME_CONSTRAINT)) {
+            return new DuplicateAccountException("Username already taken");
+        }
+        return e;
     }
 }
@@ -0,0 +1,253 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generates captions and hashtags for scheduled posts that have none. Pending posts are packed
+// into multi-item prompts within a token budget, a bounded number of prompts run at once, and
+// a 429/503 from Gemini pauses every worker until the back-off has passed.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CaptionBatchService {
+
+    // Rough Gemini tokenizer ratio for English text
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private static final String INSTRUCTIONS = "You write TikTok captions. For each video below write one catchy caption "
+            + "(at most 150 characters, no hashtags in it) and 3 to 5 relevant hashtags. "
+            + "Answer with a JSON array only, one object per video: "
+            + "[{\"id\": <video id>, \"caption\": \"...\", \"hashtags\": [\"#tag\", ...]}]\n\nVideos:\n";
+
+    private final ScheduledPostRepository scheduledPostRepository;
+    private final ScheduledPostService scheduledPostService;
+    private final GeminiClient geminiClient;
+    private final AsyncTaskExecutor outboundExecutor;
+
+    @Value("${caption.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${caption.batch.max-posts-per-run:1000}")
+    private int maxPostsPerRun;
+
+    // Prompt plus expected answer, per Gemini call
+    @Value("${caption.batch.token-budget:8000}")
+    private int tokenBudget;
+
+    @Value("${caption.batch.output-tokens-per-item:80}")
+    private int outputTokensPerItem;
+
+    @Value("${caption.batch.max-items-per-prompt:40}")
+    private int maxItemsPerPrompt;
+
+    @Value("${caption.batch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${caption.batch.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${caption.batch.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${caption.batch.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    // One element of the JSON array Gemini is asked to return
+    record CaptionItem(Long id, String caption, List<String> hashtags) {}
+
+    // Shared by all workers: no Gemini call starts before this time
+    private final AtomicLong pausedUntilMs = new AtomicLong();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Only starts a run on the outbound executor; waiting for workers and back-off happens there,
+    // not on the scheduler thread. A run still going when the next tick comes is left alone.
+    @Scheduled(fixedDelayString = "${caption.batch.interval-ms:60000}")
+    public void run() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            outboundExecutor.execute(() -> {
+                try {
+                    generatePending();
+                } catch (Exception e) {
+                    log.warn("Caption run failed: {}", e.getMessage());
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            log.warn("Outbound executor full, caption run skipped until the next tick");
+        }
+    }
+
+    void generatePending() {
+        List<ScheduledPost> pending = scheduledPostRepository.findByCaptionStatusAndStatusOrderByScheduledAtAsc(
+                ScheduledPost.CaptionStatus.PENDING, ScheduledPost.Status.PENDING, PageRequest.of(0, maxPostsPerRun));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<List<ScheduledPost>> batches = pack(pending);
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicInteger generated = new AtomicInteger();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (List<ScheduledPost> batch : batches) {
+            permits.acquireUninterruptibly();
+            try {
+                workers.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        generated.addAndGet(scheduledPostService.applyGeneratedCaptions(generate(batch)));
+                    } catch (Exception e) {
+                        // Posts stay PENDING and are retried on the next run
+                        log.warn("Caption batch of {} posts failed: {}", batch.size(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                }, outboundExecutor));
+            } catch (RejectedExecutionException e) {
+                // The rest waits for the next run, but this run only ends once the started workers have,
+                // so the next tick cannot overlap them
+                permits.release();
+                log.warn("Outbound executor full, {} of {} caption batches left for the next run",
+                        batches.size() - workers.size(), batches.size());
+                break;
+            }
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - start);
+        log.info("Generated {} captions for {} pending posts in {} Gemini calls, {} ms ({} captions/min)",
+                generated.get(), pending.size(), batches.size(), elapsedMs, generated.get() * 60_000L / elapsedMs);
+    }
+
+    // Greedy packing in schedule order: a prompt is closed when the next item would exceed the budget
+    List<List<ScheduledPost>> pack(List<ScheduledPost> posts) {
+        int fixedTokens = INSTRUCTIONS.length() / CHARS_PER_TOKEN;
+        List<List<ScheduledPost>> batches = new ArrayList<>();
+        List<ScheduledPost> current = new ArrayList<>();
+        int tokens = fixedTokens;
+        for (ScheduledPost post : posts) {
+            int itemTokens = itemLine(post).length() / CHARS_PER_TOKEN + 1 + outputTokensPerItem;
+            if (!current.isEmpty() && (tokens + itemTokens > tokenBudget || current.size() >= maxItemsPerPrompt)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                tokens = fixedTokens;
+            }
+            current.add(post);
+            tokens += itemTokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private Map<Long, GeneratedCaption> generate(List<ScheduledPost> batch) {
+        StringBuilder prompt = new StringBuilder(INSTRUCTIONS);
+        for (ScheduledPost post : batch) {
+            prompt.append(itemLine(post)).append('\n');
+        }
+
+        CaptionItem[] answer = callWithBackoff(prompt.toString());
+        Set<Long> expected = batch.stream().map(ScheduledPost::getId).collect(Collectors.toSet());
+
+        // Items Gemini skipped or mangled are simply left for the next run
+        Map<Long, GeneratedCaption> captions = new HashMap<>();
+        for (CaptionItem item : answer) {
+            String caption = item.caption() != null ? item.caption().strip() : "";
+            if (item.id() == null || !expected.contains(item.id()) || caption.isEmpty()) {
+                continue;
+            }
+            List<String> tags = new ArrayList<>();
+            for (String tag : item.hashtags() != null ? item.hashtags() : List.<String>of()) {
+                String text = tag == null ? "" : tag.strip().replace(" ", "");
+                if (!text.isEmpty()) {
+                    tags.add(text.startsWith("#") ? text : "#" + text);
+                }
+            }
+            captions.put(item.id(), new GeneratedCaption(truncate(caption, 2200), truncate(String.join(" ", tags), 500)));
+        }
+        return captions;
+    }
+
+    private CaptionItem[] callWithBackoff(String prompt) {
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            waitWhilePaused();
+            try {
+                return geminiClient.generateJson(prompt, CaptionItem[].class);
+            } catch (HttpStatusCodeException e) {
+                boolean throttled = e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                        || e.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE);
+                if (!throttled || attempt >= maxAttempts) {
+                    throw e;
+                }
+                long delayMs = retryAfterMs(e).orElse(backoffMs + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1));
+                pausedUntilMs.accumulateAndGet(System.currentTimeMillis() + delayMs, Math::max);
+                log.warn("Gemini throttled caption batch (attempt {}), pausing {} ms", attempt, delayMs);
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    private void waitWhilePaused() {
+        long waitMs;
+        while ((waitMs = pausedUntilMs.get() - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while backing off", e);
+            }
+        }
+    }
+
+    private static Optional<Long> retryAfterMs(HttpStatusCodeException e) {
+        HttpHeaders headers = e.getResponseHeaders();
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException ignored) {
+            return Optional.empty();
+        }
+    }
+
+    private static String itemLine(ScheduledPost post) {
+        String topic = post.getCaptionTopic() != null ? post.getCaptionTopic() : "";
+        return post.getId() + ": " + topic.replace('\n', ' ');
+    }
+
+    private static String truncate(String value, int max) {
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+}
@@ -0,0 +1,121 @@
+package com.aiSeduction.demo;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+// Count-based circuit breaker. CLOSED records outcomes in a ring of the last windowSize calls and
+// opens when the failure rate crosses the threshold. OPEN rejects everything until openDuration
+// has passed, then HALF_OPEN lets a few trial calls through: all succeed -> CLOSED, any fails -> OPEN.
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final OutboundHttpProperties.Resilience config;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(OutboundHttpProperties.Resilience config) {
+        this(config, System::nanoTime);
+    }
+
+    CircuitBreaker(OutboundHttpProperties.Resilience config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[config.getWindowSize()];
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < config.getOpenDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= config.getHalfOpenCalls()) {
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= config.getHalfOpenCalls()) {
+                reset();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= config.getMinimumCalls() && failures >= config.getFailureRateThreshold() * recorded) {
+                open();
+            }
+        }
+    }
+
+    // Gives back a permission from tryAcquire that ended without an outcome (e.g. no host permit)
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Duration retryAfter() {
+        long remaining = config.getOpenDuration().toNanos() - (nanoClock.getAsLong() - openedAtNanos);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[windowIndex]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            failures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = nanoClock.getAsLong();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        failures = 0;
+        windowIndex = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.aiSeduction.demo;
+
+import java.time.Duration;
+
+// Thrown without calling the downstream while its circuit breaker is open; answered with 503
+public class CircuitOpenException extends DownstreamUnavailableException {
+
+    private final String endpoint;
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String endpoint, Duration retryAfter) {
+        super("Circuit open for " + endpoint);
+        this.endpoint = endpoint;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    // For callers that catch broadly (fallbacks, error-to-text endpoints) but must still fail fast
+    public static void rethrowIfPresent(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitOpenException open) {
+                throw open;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.aiSeduction.demo;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// An open breaker answers 503 with Retry-After set to when the breaker will next let a call through
+@RestControllerAdvice
+public class DownstreamExceptionHandler {
+
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<Map<String, Object>> circuitOpen(CircuitOpenException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "downstream_unavailable");
+        body.put("endpoint", e.getEndpoint());
+        body.put("retryAfterSeconds", retryAfterSeconds);
+        body.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(body);
+    }
+}
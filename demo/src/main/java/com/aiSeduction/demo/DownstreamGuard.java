@@ -0,0 +1,157 @@
+package com.aiSeduction.demo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Circuit breaker, per-host concurrency permit and latency-derived timeout per downstream endpoint
+// (host + path), in that order: an open breaker fails fast without queueing for a permit, and the
+// latency clock starts once the permit is held, so time spent queued does not inflate the timeout.
+// Timeouts, 5xx and 429 count as failures; other 4xx are the caller's problem and count as success.
+@Component
+@Slf4j
+public class DownstreamGuard implements ClientHttpRequestInterceptor {
+
+    private final OutboundHttpProperties properties;
+    private final OutboundHttpProperties.Resilience config;
+    private final HostConcurrencyLimiter hostConcurrencyLimiter;
+    private final OutboundMetrics metrics;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    public DownstreamGuard(OutboundHttpProperties properties, HostConcurrencyLimiter hostConcurrencyLimiter,
+                           OutboundMetrics metrics) {
+        this.properties = properties;
+        this.config = properties.getResilience();
+        this.hostConcurrencyLimiter = hostConcurrencyLimiter;
+        this.metrics = metrics;
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        ClientHttpResponse execute() throws IOException;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        return guard(request.getURI(), () -> execution.execute(request, body));
+    }
+
+    // For requests built on the request factory directly (upload chunk PUTs)
+    public ClientHttpResponse execute(ClientHttpRequest request) throws IOException {
+        return guard(request.getURI(), request::execute);
+    }
+
+    public ClientHttpResponse guard(URI uri, Call call) throws IOException {
+        if (!config.isEnabled()) {
+            HostConcurrencyLimiter.Permit permit = hostConcurrencyLimiter.acquire(uri.getHost());
+            try {
+                return hostConcurrencyLimiter.holding(call.execute(), permit);
+            } catch (IOException | RuntimeException e) {
+                permit.close();
+                throw e;
+            }
+        }
+        String endpoint = endpoint(uri);
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, key -> new CircuitBreaker(config));
+        if (!breaker.tryAcquire()) {
+            metrics.increment("outbound.circuit.rejected", "endpoint", endpoint);
+            throw new CircuitOpenException(endpoint, breaker.retryAfter());
+        }
+
+        HostConcurrencyLimiter.Permit permit;
+        try {
+            permit = hostConcurrencyLimiter.acquire(uri.getHost());
+        } catch (RuntimeException e) {
+            // Our own bulkhead is full; says nothing about the downstream
+            breaker.release();
+            throw e;
+        }
+
+        LatencyTracker tracker = latencies.computeIfAbsent(endpoint, key -> new LatencyTracker(config.getLatencySamples()));
+        long start = System.nanoTime();
+        ClientHttpResponse response = null;
+        int status;
+        try {
+            response = call.execute();
+            // Some clients return before the server answered; the status line is what the timeout bounds
+            status = response.getStatusCode().value();
+        } catch (IOException | RuntimeException e) {
+            // A timed-out call is recorded at the time it gave up, so a downstream that got slower
+            // pushes the adaptive timeout up instead of timing out forever at the old p99
+            tracker.record(Duration.ofNanos(System.nanoTime() - start));
+            failed(endpoint, breaker);
+            if (response != null) {
+                response.close();
+            }
+            permit.close();
+            throw e;
+        }
+        tracker.record(Duration.ofNanos(System.nanoTime() - start));
+
+        if (status >= 500 || status == 429) {
+            failed(endpoint, breaker);
+        } else {
+            breaker.onSuccess();
+        }
+        return hostConcurrencyLimiter.holding(response, permit);
+    }
+
+    // p99 x multiplier once enough samples exist; the configured response timeout until then
+    public Duration timeoutFor(URI uri) {
+        Duration ceiling = properties.getResponseTimeout();
+        LatencyTracker tracker = latencies.get(endpoint(uri));
+        if (!config.isEnabled() || tracker == null || tracker.count() < config.getMinLatencySamples()) {
+            return ceiling;
+        }
+        long adaptive = (long) (tracker.p99().toNanos() * config.getTimeoutMultiplier());
+        long bounded = Math.max(config.getMinTimeout().toNanos(), Math.min(ceiling.toNanos(), adaptive));
+        return Duration.ofNanos(bounded);
+    }
+
+    public CircuitBreaker.State state(URI uri) {
+        CircuitBreaker breaker = breakers.get(endpoint(uri));
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.getState();
+    }
+
+    // Per-request context for the Apache client, carrying the adaptive response timeout
+    public HttpContext httpContext(HttpMethod method, URI uri) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(timeoutFor(uri)))
+                .build());
+        return context;
+    }
+
+    private void failed(String endpoint, CircuitBreaker breaker) {
+        CircuitBreaker.State before = breaker.getState();
+        breaker.onFailure();
+        if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+            log.warn("Circuit opened for {} for {} s", endpoint, config.getOpenDuration().toSeconds());
+            metrics.increment("outbound.circuit.opened", "endpoint", endpoint);
+        }
+    }
+
+    static String endpoint(URI uri) {
+        String path = uri.getPath();
+        return uri.getHost() + (path == null || path.isEmpty() ? "/" : path);
+    }
+}
@@ -0,0 +1,80 @@
+package com.aiSeduction.demo;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Pulls "Score: X/20" and the first corrected option out of an evaluation while it streams in.
+// Each chunk is scanned from where the previous scan stopped (minus a small overlap for
+// matches split across chunks), so the whole text is never re-scanned per chunk.
+public class EvaluationStreamParser {
+
+    private static final Pattern SCORE = Pattern.compile("Score:\\s*(\\d+)/20");
+    private static final String CORRECTION_HEADING = "Corrected/Improved Version:";
+    private static final Pattern OPTION = Pattern.compile("\\*\\*Option 1[^:]*?:\\*\\*\\s*\"([^\"]+)\"");
+    private static final Pattern QUOTED_LINE = Pattern.compile("(?m)^\\s*\"([^\"\\n]+)\"\\s*$");
+    private static final int OVERLAP = 64;
+
+    private final StringBuilder text = new StringBuilder();
+    private int scoreScanFrom;
+    private int headingScanFrom;
+    private int sectionStart = -1;
+    private Integer score;
+    private String correction;
+
+    // Returns true when this chunk completed the score or the correction
+    public boolean accept(String chunk) {
+        text.append(chunk);
+        boolean found = false;
+
+        if (score == null) {
+            Matcher matcher = SCORE.matcher(text).region(scoreScanFrom, text.length());
+            if (matcher.find()) {
+                score = Integer.parseInt(matcher.group(1));
+                found = true;
+            } else {
+                scoreScanFrom = Math.max(0, text.length() - OVERLAP);
+            }
+        }
+
+        if (sectionStart < 0) {
+            int heading = text.indexOf(CORRECTION_HEADING, headingScanFrom);
+            if (heading >= 0) {
+                sectionStart = heading + CORRECTION_HEADING.length();
+            } else {
+                headingScanFrom = Math.max(0, text.length() - CORRECTION_HEADING.length());
+            }
+        }
+        if (sectionStart >= 0 && correction == null) {
+            // The correction section is short, so it is re-checked as a whole
+            Matcher option = OPTION.matcher(text).region(sectionStart, text.length());
+            if (option.find()) {
+                correction = option.group(1).trim();
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    // Called once the stream ends; falls back to the first fully quoted line, as the blocking endpoint does
+    public void finish() {
+        if (sectionStart >= 0 && correction == null) {
+            Matcher line = QUOTED_LINE.matcher(text).region(sectionStart, text.length());
+            if (line.find()) {
+                correction = line.group(1).trim();
+            }
+        }
+    }
+
+    public Optional<Integer> getScore() {
+        return Optional.ofNullable(score);
+    }
+
+    public Optional<String> getCorrection() {
+        return Optional.ofNullable(correction);
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+}
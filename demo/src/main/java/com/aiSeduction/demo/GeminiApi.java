@@ -0,0 +1,62 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// generateContent / streamGenerateContent bodies, bound by the shared ObjectMapper
+public final class GeminiApi {
+
+    private GeminiApi() {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record GenerateRequest(List<Content> contents, GenerationConfig generationConfig) {
+        public static GenerateRequest of(String prompt, GenerationConfig generationConfig) {
+            return new GenerateRequest(List.of(new Content(List.of(new Part(prompt)))), generationConfig);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Content(List<Part> parts) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Part(String text) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record GenerationConfig(Integer candidateCount, Double temperature, String responseMimeType) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record GenerateResponse(List<Candidate> candidates) {
+        // Text of each candidate, in order; candidates without text are skipped
+        public List<String> texts() {
+            if (candidates == null) {
+                return List.of();
+            }
+            return candidates.stream()
+                    .map(Candidate::text)
+                    .filter(text -> text != null && !text.isEmpty())
+                    .toList();
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Candidate(Content content) {
+        public String text() {
+            if (content == null || content.parts() == null) {
+                return null;
+            }
+            StringBuilder text = new StringBuilder();
+            content.parts().forEach(part -> {
+                if (part.text() != null) {
+                    text.append(part.text());
+                }
+            });
+            return text.toString();
+        }
+    }
+}
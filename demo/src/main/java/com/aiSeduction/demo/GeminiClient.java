@@ -0,0 +1,123 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Thin wrapper over Gemini generateContent, shared by SeductionController, the response cache and the prompt pools
+@Component
+@Slf4j
+public class GeminiClient {
+
+    private final RestTemplate restTemplate;
+    private final GeminiConfig config;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader responseReader;
+    private final OutboundMetrics metrics;
+
+    @Value("${gemini.api.key}")
+    private String geminiApiKey;
+
+    public GeminiClient(RestTemplate restTemplate, GeminiConfig config, ObjectMapper objectMapper,
+                        OutboundMetrics metrics) {
+        this.restTemplate = restTemplate;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.responseReader = objectMapper.readerFor(GeminiApi.GenerateResponse.class);
+        this.metrics = metrics;
+    }
+
+    public String generate(String prompt) {
+        return generate(prompt, 1).get(0);
+    }
+
+    // One request returning up to `candidates` independent answers (Gemini caps candidateCount at 8)
+    public List<String> generate(String prompt, int candidates) {
+        GeminiApi.GenerationConfig generationConfig = candidates > 1
+                ? new GeminiApi.GenerationConfig(Math.min(candidates, 8), 1.0, null)
+                : null;
+        return generate(GeminiApi.GenerateRequest.of(prompt, generationConfig));
+    }
+
+    // Asks Gemini for a JSON document (responseMimeType) and binds it to the given type
+    public <T> T generateJson(String prompt, Class<T> type) {
+        String json = generate(GeminiApi.GenerateRequest.of(prompt,
+                new GeminiApi.GenerationConfig(null, null, "application/json"))).get(0);
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Gemini returned invalid JSON", e);
+        }
+    }
+
+    private List<String> generate(GeminiApi.GenerateRequest request) {
+        // The message converter parses the response straight from the connection's InputStream
+        GeminiApi.GenerateResponse response = metrics.record("gemini", "generate", () -> restTemplate.postForObject(
+                generateUrl(), new HttpEntity<>(request, headers()), GeminiApi.GenerateResponse.class));
+        List<String> texts = response != null ? response.texts() : List.of();
+        if (texts.isEmpty()) {
+            throw new RuntimeException("Gemini returned no candidates");
+        }
+        return texts;
+    }
+
+    // streamGenerateContent with alt=sse: every "data:" event carries the next slice of text,
+    // handed to onChunk as soon as it arrives. Returns the full text.
+    public String stream(String prompt, Consumer<String> onChunk) {
+        String url = config.getBaseUrl() + config.getModel() + ":streamGenerateContent?alt=sse";
+        // Two timers: time to the first chunk (what the user waits for) and the whole stream
+        Timer.Sample firstChunk = metrics.start();
+        return metrics.record("gemini", "stream", () -> restTemplate.execute(url, HttpMethod.POST, request -> {
+            request.getHeaders().putAll(headers());
+            request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+            objectMapper.writeValue(request.getBody(), GeminiApi.GenerateRequest.of(prompt, null));
+        }, response -> {
+            StringBuilder full = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    GeminiApi.GenerateResponse event = responseReader.readValue(line.substring(5).trim());
+                    List<String> texts = event.texts();
+                    if (!texts.isEmpty()) {
+                        if (full.isEmpty()) {
+                            metrics.stop(firstChunk, "gemini", "stream_first_chunk", true);
+                        }
+                        full.append(texts.get(0));
+                        onChunk.accept(texts.get(0));
+                    }
+                }
+            }
+            return full.toString();
+        }));
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("x-goog-api-key", geminiApiKey);
+        return headers;
+    }
+
+    private String generateUrl() {
+        return config.getBaseUrl() + config.getModel() + ":generateContent";
+    }
+}
@@ -0,0 +1,38 @@
+package com.aiSeduction.demo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gemini")
+@Data
+public class GeminiConfig {
+    private String baseUrl = "https://generativelanguage.googleapis.com/v1beta/models/";
+    private String model = "gemini-1.5-flash";
+
+    private Cache cache = new Cache();
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private int maxEntries = 10_000;
+        private Duration ttl = Duration.ofHours(6);
+        // Keep response text in direct buffers outside the Java heap, bounded by maxBytes
+        private boolean offHeap = false;
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Pool {
+        private boolean enabled = true;
+        private int targetSize = 50;
+        // Refill starts once a pool drops below this
+        private int lowWatermark = 20;
+        // Candidates requested per Gemini call (candidateCount, max 8)
+        private int batchSize = 8;
+    }
+}
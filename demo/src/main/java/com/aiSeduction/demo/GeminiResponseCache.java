@@ -0,0 +1,156 @@
+package com.aiSeduction.demo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Caches Gemini answers by a hash of the normalized prompt, so prompts that differ only in
+// case, whitespace or trailing punctuation share one entry. Bounded by entry count, TTL and,
+// when stored off-heap, by total bytes.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s.!?]+$");
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    // value is a String, or a read-only direct ByteBuffer holding UTF-8 when off-heap
+    private record Entry(Object value, int bytes, long expiresAtMs) {}
+
+    private final GeminiConfig config;
+
+    // Access-ordered for LRU; all access goes through the lock below
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private long ttlMs;
+
+    @PostConstruct
+    void init() {
+        ttlMs = config.getCache().getTtl().toMillis();
+    }
+
+    public String getOrCompute(String prompt, Function<String, String> generator) {
+        if (!config.getCache().isEnabled()) {
+            return generator.apply(prompt);
+        }
+        String key = key(prompt);
+        String cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String response = generator.apply(prompt);
+        put(key, response);
+        return response;
+    }
+
+    // For callers that produce the response themselves, e.g. by streaming it
+    public Optional<String> lookup(String prompt) {
+        return config.getCache().isEnabled() ? Optional.ofNullable(get(key(prompt))) : Optional.empty();
+    }
+
+    public void store(String prompt, String response) {
+        if (config.getCache().isEnabled()) {
+            put(key(prompt), response);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private String get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMs() <= System.currentTimeMillis()) {
+                remove(key);
+                return null;
+            }
+        }
+        if (entry.value() instanceof ByteBuffer buffer) {
+            return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+        }
+        return (String) entry.value();
+    }
+
+    private void put(String key, String response) {
+        Entry entry;
+        if (config.getCache().isOffHeap()) {
+            byte[] utf8 = response.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(utf8.length).put(utf8).flip().asReadOnlyBuffer();
+            entry = new Entry(buffer, utf8.length, System.currentTimeMillis() + ttlMs);
+        } else {
+            entry = new Entry(response, 0, System.currentTimeMillis() + ttlMs);
+        }
+
+        synchronized (entries) {
+            remove(key);
+            entries.put(key, entry);
+            totalBytes += entry.bytes();
+            evict();
+        }
+    }
+
+    // Expired entries first, then least recently used until within both bounds
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> {
+            if (entry.expiresAtMs() <= now) {
+                totalBytes -= entry.bytes();
+                return true;
+            }
+            return false;
+        });
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()
+                && (entries.size() > config.getCache().getMaxEntries() || totalBytes > config.getCache().getMaxBytes())) {
+            totalBytes -= iterator.next().bytes();
+            iterator.remove();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.bytes();
+        }
+    }
+
+    static String normalize(String prompt) {
+        String collapsed = WHITESPACE.matcher(prompt.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
+
+    private static String key(String prompt) {
+        byte[] digest = SHA256.get().digest(normalize(prompt).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+}
@@ -0,0 +1,3 @@
+package com.aiSeduction.demo;
+
+public record GeneratedCaption(String caption, String hashtags) {}
@@ -0,0 +1,94 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Caps in-flight requests per downstream host. Callers beyond the cap wait (cheaply, on
+// virtual threads) up to the acquire timeout and are then rejected instead of piling up.
+// DownstreamGuard takes and releases the permits for every outbound call.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HostConcurrencyLimiter {
+
+    private final OutboundHttpProperties properties;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public Permit acquire(String host) {
+        Semaphore semaphore = permits.computeIfAbsent(host, h -> new Semaphore(properties.getMaxConcurrentPerHost()));
+        try {
+            if (!semaphore.tryAcquire(properties.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Concurrency limit of {} reached for host {}", properties.getMaxConcurrentPerHost(), host);
+                throw new DownstreamUnavailableException("Too many concurrent requests to " + host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DownstreamUnavailableException("Interrupted waiting for a connection to " + host);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        };
+    }
+
+    public int inFlight(String host) {
+        Semaphore semaphore = permits.get(host);
+        return semaphore == null ? 0 : properties.getMaxConcurrentPerHost() - semaphore.availablePermits();
+    }
+
+    // The permit is held until the caller has finished reading the response body
+    public ClientHttpResponse holding(ClientHttpResponse response, Permit permit) {
+        return new PermitReleasingResponse(response, permit);
+    }
+
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record PermitReleasingResponse(ClientHttpResponse delegate, Permit permit) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                permit.close();
+            }
+        }
+    }
+}
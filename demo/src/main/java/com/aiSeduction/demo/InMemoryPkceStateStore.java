@@ -0,0 +1,109 @@
+package com.aiSeduction.demo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+// Entries are appended to the bucket for the current time slice. Expiry drops whole buckets,
+// so there is no per-entry timer or full scan, and memory is bounded by ttl and maxEntries.
+@Component
+@ConditionalOnProperty(name = "tiktok.pkce.store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryPkceStateStore implements PkceStateStore {
+
+    private record Entry(String codeVerifier, long createdAtMs) {}
+
+    private record Bucket(long startMs, ConcurrentHashMap<String, Entry> entries) {}
+
+    private final long ttlMs;
+    private final long bucketWidthMs;
+    private final int maxEntries;
+
+    // Oldest first; only the last bucket receives new entries
+    private final Deque<Bucket> buckets = new ConcurrentLinkedDeque<>();
+
+    public InMemoryPkceStateStore(PkceStateConfig config) {
+        this.ttlMs = config.getTtl().toMillis();
+        this.bucketWidthMs = Math.max(1, Math.min(config.getBucketWidth().toMillis(), ttlMs));
+        this.maxEntries = config.getMaxEntries();
+    }
+
+    @Override
+    public void put(String state, String codeVerifier) {
+        long now = System.currentTimeMillis();
+        if (size() >= maxEntries) {
+            evictExpired(now);
+            // Still full: drop the oldest pending logins rather than grow without bound
+            while (size() >= maxEntries && buckets.size() > 1) {
+                Bucket dropped = buckets.pollFirst();
+                if (dropped != null) {
+                    log.warn("PKCE store full, dropped {} pending logins", dropped.entries().size());
+                }
+            }
+            if (size() >= maxEntries) {
+                throw new TooManyRequestsException("Too many pending TikTok logins, please retry shortly");
+            }
+        }
+        currentBucket(now).entries().put(state, new Entry(codeVerifier, now));
+    }
+
+    @Override
+    public Optional<String> take(String state) {
+        long now = System.currentTimeMillis();
+        for (Bucket bucket : buckets) {
+            Entry entry = bucket.entries().remove(state);
+            if (entry != null) {
+                return now - entry.createdAtMs() < ttlMs ? Optional.of(entry.codeVerifier()) : Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.entries().size();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${tiktok.pkce.purge-interval:PT1M}")
+    public void purge() {
+        evictExpired(System.currentTimeMillis());
+    }
+
+    private Bucket currentBucket(long now) {
+        Bucket last = buckets.peekLast();
+        if (last != null && now < last.startMs() + bucketWidthMs) {
+            return last;
+        }
+        synchronized (buckets) {
+            last = buckets.peekLast();
+            if (last == null || now >= last.startMs() + bucketWidthMs) {
+                last = new Bucket(now - now % bucketWidthMs, new ConcurrentHashMap<>());
+                buckets.addLast(last);
+            }
+        }
+        evictExpired(now);
+        return last;
+    }
+
+    // A bucket is dead once its newest possible entry is older than the ttl
+    private void evictExpired(long now) {
+        Iterator<Bucket> iterator = buckets.iterator();
+        while (iterator.hasNext()) {
+            Bucket bucket = iterator.next();
+            if (bucket.startMs() + bucketWidthMs + ttlMs > now) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Shared pkce_states table, so the callback can land on any node. Expired rows are
+// purged through the expires_at index.
+@Component
+@ConditionalOnProperty(name = "tiktok.pkce.store", havingValue = "jdbc")
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcPkceStateStore implements PkceStateStore {
+
+    private final PkceStateRepository pkceStateRepository;
+    private final PkceStateConfig config;
+
+    @Override
+    public void put(String state, String codeVerifier) {
+        pkceStateRepository.save(new PkceState(state, codeVerifier, LocalDateTime.now().plus(config.getTtl())));
+    }
+
+    @Override
+    public Optional<String> take(String state) {
+        Optional<PkceState> found = pkceStateRepository.findById(state);
+        // Whoever deletes the row owns it; a replayed or concurrent callback gets nothing
+        if (found.isEmpty() || pkceStateRepository.deleteByState(state) == 0) {
+            return Optional.empty();
+        }
+        PkceState pkceState = found.get();
+        if (!pkceState.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(pkceState.getCodeVerifier());
+    }
+
+    @Scheduled(fixedDelayString = "${tiktok.pkce.purge-interval:PT1M}")
+    public void purge() {
+        int purged = pkceStateRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired PKCE states", purged);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.aiSeduction.demo;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Turns a bearer token into an authenticated SecurityContext using only the verified claims.
+// The principal is the JwtClaims record; no UserRepository lookup happens per request.
+@RequiredArgsConstructor
+@Slf4j
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            try {
+                JwtClaims claims = jwtUtil.parseToken(header.substring(BEARER_PREFIX.length()));
+                if (tokenRevocationService.isRevoked(claims)) {
+                    log.debug("Rejected revoked token {}", claims.tokenId());
+                } else {
+                    String role = claims.role() != null ? claims.role() : User.Role.USER.name();
+                    UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                            claims, null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+                    SecurityContext context = SecurityContextHolder.createEmptyContext();
+                    context.setAuthentication(authentication);
+                    SecurityContextHolder.setContext(context);
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                // Leave the context empty; protected routes then answer 401/403
+                log.debug("Invalid bearer token: {}", e.getMessage());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
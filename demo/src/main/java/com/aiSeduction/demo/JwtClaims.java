@@ -0,0 +1,11 @@
+package com.aiSeduction.demo;
+
+import java.time.Instant;
+
+// Verified contents of a JWT, parsed once and reused for the rest of the request
+public record JwtClaims(String tokenId, Long userId, String username, String role, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return expiresAt != null && !Instant.now().isBefore(expiresAt);
+    }
+}
@@ -3,67 +3,137 @@ package com.aiSeduction.demo;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
-    
+
     @Value("${jwt.secret:mySecretKey123456789012345678901234567890}")
     private String jwtSecret;
-    
+
     @Value("${jwt.expiration:86400000}")
     private int jwtExpiration;
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Built once; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // SHA-256 of recently verified tokens -> their claims, in LRU order
+    private Map<String, JwtClaims> verifiedTokens;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        int maxEntries = verifiedCacheSize;
+        verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtClaims> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public String generateToken(User user) {
+        return generateToken(user.getUsername(), user.getId(), user.getRole().name());
     }
-    
+
     public String generateToken(String username, Long userId) {
+        return generateToken(username, userId, User.Role.USER.name());
+    }
+
+    private String generateToken(String username, Long userId, String role) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
-        
+
+        // Carries everything JwtAuthenticationFilter needs, so requests never look the user up
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("userId", userId)
+                .claim("role", role)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())  // Remove the second parameter
+                .signWith(signingKey)
                 .compact();
     }
-    
+
+    // Verifies the signature and expiry once; repeated calls for the same token hit the LRU
+    public JwtClaims parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT is empty");
+        }
+        String digest = verifiedCacheSize > 0 ? digest(token) : null;
+        if (digest != null) {
+            JwtClaims cached = verifiedTokens.get(digest);
+            if (cached != null) {
+                if (!cached.isExpired()) {
+                    return cached;
+                }
+                verifiedTokens.remove(digest);
+                throw new JwtException("JWT expired");
+            }
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        JwtClaims verified = new JwtClaims(
+                claims.getId(),
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+
+        if (digest != null) {
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
+    }
+
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.getSubject();
+        return parseToken(token).username();
     }
-    
+
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.get("userId", Long.class);
+        return parseToken(token).userId();
     }
-    
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA256.get();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
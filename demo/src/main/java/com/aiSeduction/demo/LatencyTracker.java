@@ -0,0 +1,45 @@
+package com.aiSeduction.demo;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Keeps the last N response latencies of one endpoint and answers percentile queries. The
+// percentile is recomputed at most once per refreshEvery samples, so reads stay cheap.
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final int refreshEvery;
+    private int next;
+    private int count;
+    private int sinceRefresh;
+    private long cachedP99Nanos = -1;
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+        this.refreshEvery = Math.max(1, capacity / 16);
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        sinceRefresh++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized Duration p99() {
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        if (cachedP99Nanos < 0 || sinceRefresh >= refreshEvery) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            cachedP99Nanos = sorted[Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1)];
+            sinceRefresh = 0;
+        }
+        return Duration.ofNanos(cachedP99Nanos);
+    }
+}
@@ -0,0 +1,97 @@
+package com.aiSeduction.demo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// One in-flight TikTok login. Written once by the background exchange, read by poll or SSE.
+public class LoginTicket {
+
+    public enum Status {
+        PENDING, COMPLETED, FAILED
+    }
+
+    public record Result(String token, UserDto user) {
+    }
+
+    // Status and response body read together, so a ticket finishing in between cannot split them
+    public record Snapshot(Status status, Map<String, Object> response) {
+    }
+
+    private final String id;
+    private final long expiresAtMs;
+
+    private Status status = Status.PENDING;
+    private Result result;
+    private String error;
+    private final List<Consumer<LoginTicket>> listeners = new ArrayList<>();
+
+    public LoginTicket(String id, long expiresAtMs) {
+        this.id = id;
+        this.expiresAtMs = expiresAtMs;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public boolean isExpired(long nowMs) {
+        return nowMs >= expiresAtMs;
+    }
+
+    void succeed(Result result) {
+        finish(Status.COMPLETED, result, null);
+    }
+
+    void fail(String error) {
+        finish(Status.FAILED, null, error);
+    }
+
+    // Runs immediately if the ticket has already finished
+    void onDone(Consumer<LoginTicket> listener) {
+        synchronized (this) {
+            if (status == Status.PENDING) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.accept(this);
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(status, toResponse());
+    }
+
+    public synchronized Map<String, Object> toResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("ticket", id);
+        response.put("status", status.name());
+        if (result != null) {
+            response.put("token", result.token());
+            response.put("user", result.user());
+        }
+        if (error != null) {
+            response.put("error", "authentication_failed");
+            response.put("message", error);
+        }
+        return response;
+    }
+
+    private void finish(Status status, Result result, String error) {
+        List<Consumer<LoginTicket>> toNotify;
+        synchronized (this) {
+            this.status = status;
+            this.result = result;
+            this.error = error;
+            toNotify = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        toNotify.forEach(listener -> listener.accept(this));
+    }
+}
@@ -0,0 +1,119 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+// Finishes TikTok logins off the callback request. The callback gets a ticket id straight away;
+// the token exchange, user-info fetch and upsert run on the outbound executor, and the frontend
+// polls or subscribes for the resulting JWT. A completed ticket is handed out once, then dropped.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginTicketService {
+
+    private final TikTokService tiktokService;
+    private final JwtUtil jwtUtil;
+    private final AsyncTaskExecutor outboundExecutor;
+
+    @Value("${tiktok.login-ticket.enabled:false}")
+    private boolean enabled;
+
+    @Value("${tiktok.login-ticket.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${tiktok.login-ticket.max-pending:10000}")
+    private int maxPending;
+
+    private final ConcurrentHashMap<String, LoginTicket> tickets = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LoginTicket submit(String code, String state) {
+        if (tickets.size() >= maxPending) {
+            throw new TooManyRequestsException("Too many logins in progress, please retry shortly");
+        }
+        LoginTicket ticket = new LoginTicket(UUID.randomUUID().toString(), System.currentTimeMillis() + ttlMs);
+        tickets.put(ticket.getId(), ticket);
+        try {
+            CompletableFuture.supplyAsync(() -> complete(code, state), outboundExecutor)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.error("Background TikTok login failed for ticket {}", ticket.getId(), error);
+                            ticket.fail("Failed to authenticate with TikTok");
+                        } else {
+                            ticket.succeed(result);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            tickets.remove(ticket.getId());
+            throw new TooManyRequestsException("Too many logins in progress, please retry shortly");
+        }
+        return ticket;
+    }
+
+    // Finished tickets are consumed by the first read that removes them, so a JWT is never served twice.
+    // The decision and the body come from one snapshot: a ticket finishing after the snapshot is
+    // reported as pending and picked up by the next poll.
+    public Optional<LoginTicket.Snapshot> poll(String id) {
+        LoginTicket ticket = tickets.get(id);
+        if (ticket == null || ticket.isExpired(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        LoginTicket.Snapshot snapshot = ticket.snapshot();
+        if (snapshot.status() != LoginTicket.Status.PENDING && !tickets.remove(id, ticket)) {
+            // Another poll or the SSE stream got there first
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    public SseEmitter subscribe(String id) {
+        LoginTicket ticket = tickets.get(id);
+        SseEmitter emitter = new SseEmitter(ttlMs);
+        if (ticket == null) {
+            emitter.completeWithError(new IllegalArgumentException("Unknown or expired login ticket"));
+            return emitter;
+        }
+        ticket.onDone(done -> {
+            if (!tickets.remove(id, done)) {
+                emitter.completeWithError(new IllegalArgumentException("Login ticket already consumed"));
+                return;
+            }
+            try {
+                LoginTicket.Snapshot snapshot = done.snapshot();
+                emitter.send(SseEmitter.event().name(snapshot.status().name().toLowerCase()).data(snapshot.response()));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${tiktok.login-ticket.purge-interval-ms:60000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.isExpired(now));
+    }
+
+    private LoginTicket.Result complete(String code, String state) {
+        User user = tiktokService.handleTikTokCallback(code, state);
+        String token = jwtUtil.generateToken(user);
+        log.info("Background TikTok login completed for user: {}", user.getId());
+        return new LoginTicket.Result(token, new UserDto(user));
+    }
+}
@@ -0,0 +1,112 @@
+package com.aiSeduction.demo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.EndpointDetails;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+
+// Single pooled, keep-alive HTTP client shared by every outbound caller (TikTok, Gemini)
+@Configuration
+public class OutboundHttpConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "outbound", name = "http2", havingValue = "false", matchIfMissing = true)
+    public PoolingHttpClientConnectionManager outboundConnectionManager(OutboundHttpProperties properties,
+                                                                       MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .setTimeToLive(TimeValue.of(properties.getConnectionTimeToLive()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        properties.getHostMaxConnections().forEach((host, max) ->
+                connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost("https", host, 443)), max));
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "outbound", name = "http2", havingValue = "false", matchIfMissing = true)
+    public CloseableHttpClient outboundHttpClient(PoolingHttpClientConnectionManager outboundConnectionManager,
+                                                  OutboundHttpProperties properties,
+                                                  MeterRegistry meterRegistry) {
+        Counter reused = meterRegistry.counter("outbound.connections.requests", "reused", "true");
+        Counter fresh = meterRegistry.counter("outbound.connections.requests", "reused", "false");
+
+        return HttpClients.custom()
+                .setConnectionManager(outboundConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()))
+                // A request count above one means the exchange went over a kept-alive connection
+                .addResponseInterceptorLast((response, entity, context) -> {
+                    EndpointDetails endpoint = HttpClientContext.castOrCreate(context).getEndpointDetails();
+                    if (endpoint != null) {
+                        (endpoint.getRequestCount() > 1 ? reused : fresh).increment();
+                    }
+                })
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory outboundRequestFactory(OutboundHttpProperties properties,
+                                                           ObjectProvider<CloseableHttpClient> outboundHttpClient,
+                                                           DownstreamGuard downstreamGuard) {
+        if (properties.isHttp2()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(properties.getConnectTimeout())
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(properties.getResponseTimeout());
+            return requestFactory;
+        }
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                new HttpComponentsClientHttpRequestFactory(outboundHttpClient.getObject());
+        // Per-request response timeout from the endpoint's observed p99 (the JDK client above keeps a fixed one)
+        requestFactory.setHttpContextFactory(downstreamGuard::httpContext);
+        return requestFactory;
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     ClientHttpRequestFactory outboundRequestFactory,
+                                     DownstreamGuard downstreamGuard) {
+        // The guard also takes the per-host permit, after its breaker check
+        return builder
+                .requestFactory(() -> outboundRequestFactory)
+                .additionalInterceptors(downstreamGuard)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.aiSeduction.demo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "outbound")
+@Data
+public class OutboundHttpProperties {
+    // Use the JDK client (HTTP/2 with ALPN, falls back to HTTP/1.1) instead of the Apache pool
+    private boolean http2 = false;
+
+    // In-flight request cap per host (HostConcurrencyLimiter)
+    private int maxConcurrentPerHost = 64;
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+
+    private int maxConnections = 200;
+    private int maxConnectionsPerHost = 64;
+    // Per-host overrides of maxConnectionsPerHost, e.g. outbound.host-max-connections[open.tiktokapis.com]=100
+    private Map<String, Integer> hostMaxConnections = new HashMap<>();
+
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    private Duration responseTimeout = Duration.ofSeconds(15);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    private Resilience resilience = new Resilience();
+
+    // Per-endpoint (host + path) circuit breakers and adaptive timeouts (DownstreamGuard)
+    @Data
+    public static class Resilience {
+        private boolean enabled = true;
+        // Breaker opens when at least this share of the last window-size calls failed
+        private double failureRateThreshold = 0.5;
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private Duration openDuration = Duration.ofSeconds(30);
+        // Trial calls let through while half-open; all must succeed to close again
+        private int halfOpenCalls = 3;
+        // Response timeout = p99 of recent latencies x multiplier, within [min-timeout, response-timeout]
+        private double timeoutMultiplier = 3.0;
+        private Duration minTimeout = Duration.ofSeconds(1);
+        private int latencySamples = 512;
+        private int minLatencySamples = 50;
+    }
+}
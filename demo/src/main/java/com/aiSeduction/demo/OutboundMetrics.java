@@ -0,0 +1,61 @@
+package com.aiSeduction.demo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Timers for logical outbound calls (one TikTok/Gemini operation, however many HTTP requests
+// it takes) and counters for the paths we care about, exported through /actuator/prometheus.
+@Component
+@RequiredArgsConstructor
+public class OutboundMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    // outbound.calls{target, operation, outcome}: histogram buckets so p99 can be computed server-side
+    public <T> T record(String target, String operation, Supplier<T> call) {
+        Timer.Sample sample = start();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            stop(sample, target, operation, success);
+        }
+    }
+
+    // For calls that throw checked exceptions or span a callback
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String target, String operation, boolean success) {
+        sample.stop(Timer.builder("outbound.calls")
+                .tag("target", target)
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    public void increment(String name, String... tags) {
+        Counter.builder(name).tags(tags).register(meterRegistry).increment();
+    }
+
+    public void increment(String name, double amount, String... tags) {
+        Counter.builder(name).tags(tags).register(meterRegistry).increment(amount);
+    }
+
+    // Keeps enough of a token to correlate log lines without making it usable
+    public static String mask(String secret) {
+        if (secret == null) {
+            return null;
+        }
+        return secret.length() <= 8 ? "****" : secret.substring(0, 4) + "****" + secret.substring(secret.length() - 4);
+    }
+}
@@ -0,0 +1,45 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Dead-letter view for outbox events that ran out of retries (admin only, see SecurityConfig)
+@RestController
+@RequestMapping("/api/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final OutboxRelay outboxRelay;
+
+    @GetMapping("/dead-letters")
+    public ResponseEntity<Map<String, Object>> deadLetters(@RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "50") int size) {
+        var result = outboxRelay.deadLetters(PageRequest.of(page, Math.min(size, 200)));
+        Map<String, Object> response = new HashMap<>();
+        response.put("events", result.getContent());
+        response.put("total", result.getTotalElements());
+        response.put("page", page);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/dead-letters/{id}/replay")
+    public ResponseEntity<OutboxEvent> replay(@PathVariable Long id) {
+        return outboxRelay.replay(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Replays every dead event in the given page, e.g. after an outage has been fixed
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<Map<String, Object>> replayAll(@RequestParam(defaultValue = "50") int size) {
+        List<Long> ids = outboxRelay.deadLetters(PageRequest.of(0, Math.min(size, 200))).map(OutboxEvent::getId).getContent();
+        ids.forEach(outboxRelay::replay);
+        return ResponseEntity.ok(Map.of("replayed", ids.size()));
+    }
+}
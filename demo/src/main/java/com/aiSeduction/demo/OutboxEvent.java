@@ -0,0 +1,65 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Durable unit of TikTok work, written in the same transaction as the row it is about.
+// nextAttemptAt doubles as the lease: a claimed (IN_FLIGHT) event whose lease has run out
+// is due again, so work held by a crashed node is picked up by the relay.
+@Entity
+@Table(name = "outbox_events", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_outbox_events_idempotency_key", columnNames = "idempotencyKey")
+}, indexes = {
+    @Index(name = "idx_outbox_events_status_next", columnList = "status, nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    // e.g. the scheduled post id
+    private Long aggregateId;
+
+    // Account the call is made for; used to pace work per account
+    private Long userId;
+
+    // One event per logical operation; enqueueing the same key twice is rejected by the unique key
+    @Column(length = 128, nullable = false)
+    private String idempotencyKey;
+
+    @Column(length = 2048)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public enum Type {
+        UPLOAD_POST, PUBLISH_STATUS
+    }
+
+    public enum Status {
+        PENDING, IN_FLIGHT, DONE, DEAD
+    }
+
+    public static String uploadKey(Long postId) {
+        return "upload-post:" + postId;
+    }
+}
@@ -0,0 +1,52 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    Optional<OutboxEvent> findByIdempotencyKey(String idempotencyKey);
+
+    Page<OutboxEvent> findByStatusOrderByUpdatedAtDesc(OutboxEvent.Status status, Pageable pageable);
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): concurrent relays each get a disjoint batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.status in :statuses and e.nextAttemptAt <= :now"
+            + " order by e.nextAttemptAt asc")
+    List<OutboxEvent> findDueForUpdate(@Param("statuses") Collection<OutboxEvent.Status> statuses,
+                                       @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Conditional update, so only one of the timing wheel and the relay wins a due event
+    @Modifying
+    @Transactional
+    @Query("update OutboxEvent e set e.status = :claimed, e.nextAttemptAt = :leaseUntil, e.updatedAt = :now"
+            + " where e.id = :id and e.status in :claimable and e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("claimable") Collection<OutboxEvent.Status> claimable,
+              @Param("claimed") OutboxEvent.Status claimed, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Pushes out the lease of an event that is still claimed; never shortens it
+    @Modifying
+    @Transactional
+    @Query("update OutboxEvent e set e.nextAttemptAt = :leaseUntil"
+            + " where e.id = :id and e.status = :claimed and e.nextAttemptAt < :leaseUntil")
+    int extendLease(@Param("id") Long id, @Param("claimed") OutboxEvent.Status claimed,
+                    @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -0,0 +1,14 @@
+package com.aiSeduction.demo;
+
+// Executes one type of outbox event. handle() may run more than once for the same event
+// (retries, expired leases), so it must be safe to repeat.
+public interface OutboxHandler {
+
+    OutboxEvent.Type type();
+
+    void handle(OutboxEvent event) throws Exception;
+
+    // Called once retries are exhausted and the event has been dead-lettered
+    default void onDeadLetter(OutboxEvent event) {
+    }
+}
@@ -0,0 +1,226 @@
+package com.aiSeduction.demo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Drains outbox_events. Due events are claimed in batches (SKIP LOCKED, so several nodes can
+// relay at once), run on the upload executor paced per account, and on failure rescheduled
+// with capped exponential back-off and full jitter. After max-attempts an event is parked as
+// DEAD until someone replays it.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private static final List<OutboxEvent.Status> CLAIMABLE = List.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.IN_FLIGHT);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountRateLimiter rateLimiter;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+
+    @Value("${outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.relay.batch-size:50}")
+    private int batchSize;
+
+    // How long a claimed event is left alone before it is considered abandoned
+    @Value("${outbox.relay.lease:PT30M}")
+    private Duration lease;
+
+    @Value("${outbox.relay.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${outbox.relay.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    private final Map<OutboxEvent.Type, OutboxHandler> handlersByType = new EnumMap<>(OutboxEvent.Type.class);
+
+    @PostConstruct
+    void init() {
+        handlers.forEach(handler -> handlersByType.put(handler.type(), handler));
+    }
+
+    // Joins the caller's transaction, so the event commits or rolls back together with its row
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(OutboxEvent.Type type, Long aggregateId, Long userId, String idempotencyKey,
+                               String payload, LocalDateTime availableAt) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setAggregateId(aggregateId);
+        event.setUserId(userId);
+        event.setIdempotencyKey(idempotencyKey);
+        event.setPayload(payload);
+        event.setNextAttemptAt(availableAt);
+        return outboxEventRepository.save(event);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:5000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(CLAIMABLE, now, PageRequest.of(0, batchSize));
+            for (OutboxEvent event : due) {
+                if (event.getStatus() == OutboxEvent.Status.IN_FLIGHT) {
+                    log.warn("Outbox event {} lease expired, reclaiming", event.getId());
+                }
+                event.setStatus(OutboxEvent.Status.IN_FLIGHT);
+                event.setNextAttemptAt(now.plus(lease));
+                event.setUpdatedAt(now);
+            }
+            return due;
+        });
+        if (claimed != null && !claimed.isEmpty()) {
+            log.debug("Relaying {} outbox events", claimed.size());
+            claimed.forEach(this::submit);
+        }
+    }
+
+    // Fast path for the timing wheel: runs the event now if it is due and nobody else holds it
+    public boolean trigger(String idempotencyKey) {
+        Optional<OutboxEvent> found = outboxEventRepository.findByIdempotencyKey(idempotencyKey);
+        if (found.isEmpty()) {
+            return false;
+        }
+        OutboxEvent event = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(lease);
+        if (outboxEventRepository.claim(event.getId(), CLAIMABLE, OutboxEvent.Status.IN_FLIGHT, now, leaseUntil) == 0) {
+            return false;
+        }
+        event.setStatus(OutboxEvent.Status.IN_FLIGHT);
+        event.setNextAttemptAt(leaseUntil);
+        submit(event);
+        return true;
+    }
+
+    public Page<OutboxEvent> deadLetters(Pageable pageable) {
+        return outboxEventRepository.findByStatusOrderByUpdatedAtDesc(OutboxEvent.Status.DEAD, pageable);
+    }
+
+    // Puts a dead event back in the queue with a fresh attempt budget
+    public Optional<OutboxEvent> replay(Long id) {
+        return outboxEventRepository.findById(id)
+                .filter(event -> event.getStatus() == OutboxEvent.Status.DEAD)
+                .map(event -> {
+                    event.setStatus(OutboxEvent.Status.PENDING);
+                    event.setAttempts(0);
+                    event.setNextAttemptAt(LocalDateTime.now());
+                    event.setUpdatedAt(LocalDateTime.now());
+                    log.info("Outbox event {} ({}) replayed", event.getId(), event.getIdempotencyKey());
+                    return outboxEventRepository.save(event);
+                });
+    }
+
+    private void submit(OutboxEvent event) {
+        Runnable task = () -> execute(event);
+        if (event.getUserId() != null) {
+            Duration wait = rateLimiter.runWhenAllowed(event.getUserId(), uploadExecutor, task, rejected -> release(event));
+            if (!wait.isZero()) {
+                // The lease counts from when the task can start. Otherwise a backlog longer than the lease
+                // would expire while still waiting for its token, and the relay would queue a second copy.
+                try {
+                    outboxEventRepository.extendLease(event.getId(), OutboxEvent.Status.IN_FLIGHT,
+                            LocalDateTime.now().plus(wait).plus(lease));
+                } catch (RuntimeException e) {
+                    log.warn("Could not extend the lease of outbox event {}: {}", event.getId(), e.getMessage());
+                }
+            }
+            return;
+        }
+        try {
+            uploadExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            release(event);
+        }
+    }
+
+    // Gives a claimed event back without counting an attempt, rather than leaving it IN_FLIGHT until
+    // the lease runs out
+    private void release(OutboxEvent event) {
+        log.warn("Executor full, outbox event {} released for retry", event.getId());
+        try {
+            event.setStatus(OutboxEvent.Status.PENDING);
+            event.setNextAttemptAt(LocalDateTime.now().plus(initialBackoff));
+            event.setUpdatedAt(LocalDateTime.now());
+            outboxEventRepository.save(event);
+        } catch (RuntimeException e) {
+            // Still claimed; the relay picks it up again once the lease runs out
+            log.warn("Could not release outbox event {}, deferred to lease expiry: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    void execute(OutboxEvent event) {
+        OutboxHandler handler = handlersByType.get(event.getType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No handler for outbox event type " + event.getType());
+            }
+            handler.handle(event);
+            event.setStatus(OutboxEvent.Status.DONE);
+            event.setLastError(null);
+        } catch (Exception e) {
+            fail(event, e);
+        }
+        event.setUpdatedAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+
+        if (event.getStatus() == OutboxEvent.Status.DEAD && handler != null) {
+            handler.onDeadLetter(event);
+        }
+    }
+
+    private void fail(OutboxEvent event, Exception error) {
+        event.setAttempts(event.getAttempts() + 1);
+        String message = String.valueOf(error.getMessage());
+        event.setLastError(message.length() > 1024 ? message.substring(0, 1024) : message);
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxEvent.Status.DEAD);
+            log.error("Outbox event {} ({}) dead after {} attempts: {}",
+                    event.getId(), event.getIdempotencyKey(), event.getAttempts(), message);
+            return;
+        }
+        Duration delay = backoff(event.getAttempts());
+        event.setStatus(OutboxEvent.Status.PENDING);
+        event.setNextAttemptAt(LocalDateTime.now().plus(delay));
+        log.warn("Outbox event {} ({}) attempt {} failed, retrying in {} s: {}",
+                event.getId(), event.getIdempotencyKey(), event.getAttempts(), delay.toSeconds(), message);
+    }
+
+    // Full jitter: uniform over [initial, min(max, initial * 2^(attempt - 1))], so events that failed
+    // together during an outage do not all come back at the same moment
+    Duration backoff(int attempt) {
+        long ceiling = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        ceiling = Math.min(ceiling, maxBackoff.toMillis());
+        long floor = Math.min(initialBackoff.toMillis(), ceiling);
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(floor, ceiling + 1));
+    }
+}
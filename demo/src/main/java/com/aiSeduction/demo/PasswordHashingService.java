@@ -0,0 +1,151 @@
+package com.aiSeduction.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Runs BCrypt on a small dedicated pool so a login storm cannot tie up every servlet thread.
+// When the pool's queue is full callers get an immediate 429 instead of waiting in line.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.bcrypt.target-hash-ms:250}")
+    private long targetHashMs;
+
+    @Value("${security.bcrypt.min-cost:10}")
+    private int minCost;
+
+    @Value("${security.bcrypt.max-cost:14}")
+    private int maxCost;
+
+    @Value("${security.bcrypt.threads:0}")
+    private int threads;
+
+    @Value("${security.bcrypt.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.bcrypt.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    private int cost;
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+
+    @PostConstruct
+    void init() {
+        cost = calibrateCost();
+        encoder = new BCryptPasswordEncoder(cost);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        meterRegistry.gauge("auth.password.hash.queue", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public PasswordEncoder encoder() {
+        return encoder;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> encoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // True when the hash was made with a different cost than the calibrated one
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    private <T> T submit(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing pool saturated ({} queued)", executor.getQueue().size());
+            throw new TooManyRequestsException("Too many concurrent sign-ins, please retry shortly");
+        }
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TooManyRequestsException("Password check timed out, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Each extra BCrypt cost step doubles the work, so one measurement at minCost is enough
+    // to pick the highest cost whose hash time stays within the target.
+    private int calibrateCost() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minCost);
+        probe.encode("calibration-warmup");
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double measuredMs = Math.max(best / 1_000_000.0, 0.001);
+
+        int calibrated = minCost;
+        double expectedMs = measuredMs;
+        while (calibrated < maxCost && expectedMs * 2 <= targetHashMs) {
+            calibrated++;
+            expectedMs *= 2;
+        }
+        log.info("BCrypt cost calibrated to {} (~{} ms per hash, target {} ms)",
+                calibrated, Math.round(expectedMs), targetHashMs);
+        return calibrated;
+    }
+}
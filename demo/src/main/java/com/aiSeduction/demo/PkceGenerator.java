@@ -0,0 +1,89 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Builds PKCE verifier/challenge pairs. A background job keeps a pool of them topped up so the
+// /auth/tiktok request path normally just takes one from memory; an empty pool falls back to
+// generating inline.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PkceGenerator {
+
+    // Seeded once; SecureRandom is thread-safe and reseeding it per call can block on entropy
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final PkceStateConfig config;
+
+    private BlockingQueue<PkcePair> pool;
+
+    public record PkcePair(String verifier, String challenge) {
+    }
+
+    public PkcePair next() {
+        PkcePair pair = pool != null ? pool.poll() : null;
+        return pair != null ? pair : generate();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        if (config.getPoolSize() > 0) {
+            pool = new ArrayBlockingQueue<>(config.getPoolSize());
+            refill();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tiktok.pkce.pool-refill-interval:PT0.5S}")
+    public void refill() {
+        BlockingQueue<PkcePair> current = pool;
+        if (current == null) {
+            return;
+        }
+        int added = 0;
+        while (current.remainingCapacity() > 0 && current.offer(generate())) {
+            added++;
+        }
+        if (added > 0) {
+            log.debug("PKCE pool topped up with {} pairs", added);
+        }
+    }
+
+    public static PkcePair generate() {
+        String verifier = generateCodeVerifier();
+        return new PkcePair(verifier, generateCodeChallenge(verifier));
+    }
+
+    public static String generateCodeVerifier() {
+        byte[] randomBytes = new byte[32];
+        RANDOM.nextBytes(randomBytes);
+        return ENCODER.encodeToString(randomBytes);
+    }
+
+    public static String generateCodeChallenge(String codeVerifier) {
+        byte[] hashed = SHA256.get().digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
+        return ENCODER.encodeToString(hashed);
+    }
+}
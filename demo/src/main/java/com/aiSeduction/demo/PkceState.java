@@ -0,0 +1,26 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "pkce_states", indexes = {
+    @Index(name = "idx_pkce_states_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PkceState {
+    @Id
+    @Column(length = 64)
+    private String state;
+
+    @Column(length = 128, nullable = false)
+    private String codeVerifier;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,25 @@
+package com.aiSeduction.demo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "tiktok.pkce")
+@Data
+public class PkceStateConfig {
+    // memory: per-node, fine for a single instance; jdbc: shared table, needed behind a load balancer
+    private String store = "memory";
+    // How long a user has to finish the TikTok consent screen
+    private Duration ttl = Duration.ofMinutes(10);
+    // In-memory store: entries are grouped into buckets this wide and evicted a bucket at a time
+    private Duration bucketWidth = Duration.ofMinutes(1);
+    // In-memory store: hard cap on pending logins
+    private int maxEntries = 100_000;
+    private Duration purgeInterval = Duration.ofMinutes(1);
+    // Pre-generated verifier/challenge pairs kept ready for /auth/tiktok; 0 disables the pool
+    private int poolSize = 1024;
+    private Duration poolRefillInterval = Duration.ofMillis(500);
+}
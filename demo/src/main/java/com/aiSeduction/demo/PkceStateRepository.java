@@ -0,0 +1,25 @@
+package com.aiSeduction.demo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PkceStateRepository extends JpaRepository<PkceState, String> {
+
+    // Returns 1 only for the caller that actually removed the row
+    @Modifying
+    @Transactional
+    @Query("delete from PkceState p where p.state = :state")
+    int deleteByState(@Param("state") String state);
+
+    @Modifying
+    @Transactional
+    @Query("delete from PkceState p where p.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,12 @@
+package com.aiSeduction.demo;
+
+import java.util.Optional;
+
+// Holds the PKCE code_verifier between /auth/tiktok and the OAuth callback, keyed by the state parameter.
+// Entries expire after tiktok.pkce.ttl; take() consumes an entry so a state can only be used once.
+public interface PkceStateStore {
+
+    void put(String state, String codeVerifier);
+
+    Optional<String> take(String state);
+}
@@ -0,0 +1,35 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per video content (SHA-256 of the source file) already posted to a user's account
+@Entity
+@Table(name = "posted_content", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_posted_content_user_hash", columnNames = {"userId", "contentHash"})
+})
+@Data
+@NoArgsConstructor
+public class PostedContent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    @Column(length = 64, nullable = false)
+    private String contentHash;
+
+    private String publishId;
+
+    private LocalDateTime postedAt = LocalDateTime.now();
+
+    public PostedContent(Long userId, String contentHash, String publishId) {
+        this.userId = userId;
+        this.contentHash = contentHash;
+        this.publishId = publishId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.aiSeduction.demo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface PostedContentRepository extends JpaRepository<PostedContent, Long> {
+    Optional<PostedContent> findByUserIdAndContentHash(Long userId, String contentHash);
+
+    @Modifying
+    @Transactional
+    @Query("delete from PostedContent p where p.userId = :userId and p.publishId = :publishId")
+    int deleteByUserIdAndPublishId(@Param("userId") Long userId, @Param("publishId") String publishId);
+}
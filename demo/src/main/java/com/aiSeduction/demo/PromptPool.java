@@ -0,0 +1,85 @@
+package com.aiSeduction.demo;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+// Pre-generated answers to one fixed Gemini prompt. Requests take from memory; refill() is
+// called by a background job and tops the pool up with batched multi-candidate requests.
+@Slf4j
+public class PromptPool {
+
+    private final String name;
+    private final String generationPrompt;
+    private final UnaryOperator<String> cleaner;
+    private final GeminiClient geminiClient;
+    private final GeminiConfig.Pool config;
+
+    private final ConcurrentLinkedQueue<String> items = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    public PromptPool(String name, String generationPrompt, UnaryOperator<String> cleaner,
+                      GeminiClient geminiClient, GeminiConfig.Pool config) {
+        this.name = name;
+        this.generationPrompt = generationPrompt;
+        this.cleaner = cleaner;
+        this.geminiClient = geminiClient;
+        this.config = config;
+    }
+
+    public Optional<String> poll() {
+        String item = items.poll();
+        if (item != null) {
+            size.decrementAndGet();
+        }
+        return Optional.ofNullable(item);
+    }
+
+    // Used when the pool is empty, so a request never waits on a whole batch
+    public String generateOne() {
+        return cleaner.apply(geminiClient.generate(generationPrompt));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void refill() {
+        if (size.get() >= config.getLowWatermark() || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int added = 0;
+            while (size.get() < config.getTargetSize()) {
+                List<String> batch = geminiClient.generate(generationPrompt, config.getBatchSize());
+                // Candidates in one batch often repeat each other; keep distinct ones only
+                Set<String> distinct = new LinkedHashSet<>();
+                for (String candidate : batch) {
+                    String cleaned = cleaner.apply(candidate);
+                    if (!cleaned.isBlank()) {
+                        distinct.add(cleaned);
+                    }
+                }
+                if (distinct.isEmpty()) {
+                    break;
+                }
+                items.addAll(distinct);
+                size.addAndGet(distinct.size());
+                added += distinct.size();
+            }
+            log.debug("Prompt pool {} refilled with {} items, size {}", name, added, size.get());
+        } catch (Exception e) {
+            log.warn("Prompt pool {} refill failed: {}", name, e.getMessage());
+        } finally {
+            refilling.set(false);
+        }
+    }
+}
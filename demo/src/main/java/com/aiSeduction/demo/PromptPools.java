@@ -0,0 +1,67 @@
+package com.aiSeduction.demo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// The two random-prompt pools behind /api/prompts/random and /api/questions/random
+@Component
+@RequiredArgsConstructor
+public class PromptPools {
+
+    static final String SCENARIO_PROMPT = "Generate a single, concise prompt for practicing confident, engaging conversation starters in a seduction or social skills context. " +
+            "The prompt should describe a unique and highly random social situation where the user can make a confident statement to initiate dialogue. " +
+            "Emphasize creativity and unpredictability in the setting, people, or objects involved (e.g., unusual locations, quirky activities, or unexpected encounters). " +
+            "Avoid repetitive or generic scenarios like bars or coffee shops. Return only the prompt text, enclosed in quotes, e.g., \"You notice someone juggling fruit at a farmer's market. Make a confident statement to start a conversation.\"";
+
+    static final String QUESTION_PROMPT = "Generate a single, concise, interview-style question that might be asked in a casual social interaction, suitable for a seduction or social skills context with women. " +
+            "The question should be simple, day-to-day, and conversational, e.g., 'What do you like?' or 'Do you enjoy reading?' " +
+            "Return only the question text, enclosed in quotes, e.g., \"What do you like?\"";
+
+    private final GeminiClient geminiClient;
+    private final GeminiConfig config;
+    private final AsyncTaskExecutor outboundExecutor;
+
+    private PromptPool scenarios;
+    private PromptPool questions;
+
+    @PostConstruct
+    void init() {
+        scenarios = new PromptPool("scenarios", SCENARIO_PROMPT, PromptPools::stripQuotes, geminiClient, config.getPool());
+        questions = new PromptPool("questions", QUESTION_PROMPT, PromptPools::stripQuotes, geminiClient, config.getPool());
+    }
+
+    public String nextScenario() {
+        return scenarios.poll().orElseGet(scenarios::generateOne);
+    }
+
+    public String nextQuestion() {
+        return questions.poll().orElseGet(questions::generateOne);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${gemini.pool.refill-interval-ms:5000}")
+    public void refill() {
+        if (!config.getPool().isEnabled()) {
+            return;
+        }
+        // The Gemini calls run on the outbound executor; each pool skips a refill while one is running
+        refillAsync(scenarios);
+        refillAsync(questions);
+    }
+
+    private void refillAsync(PromptPool pool) {
+        try {
+            outboundExecutor.execute(pool::refill);
+        } catch (RejectedExecutionException e) {
+            // Busy; the next tick tries again
+        }
+    }
+
+    static String stripQuotes(String text) {
+        return text.strip().replaceAll("^\"|\"$", "");
+    }
+}
@@ -0,0 +1,45 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The signed-in user's uploads that TikTok is still publishing: a snapshot, or a stream of changes
+@RestController
+@RequestMapping("/api/publish-status")
+@RequiredArgsConstructor
+public class PublishStatusController {
+
+    private final PublishStatusTracker publishStatusTracker;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> inFlight(@AuthenticationPrincipal JwtClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<PublishStatusTracker.Update> posts = publishStatusTracker.inFlight(claims.userId());
+        Map<String, Object> response = new HashMap<>();
+        response.put("posts", posts);
+        response.put("count", posts.size());
+        return ResponseEntity.ok(response);
+    }
+
+    // "snapshot" on connect, then one "status" event per change
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@AuthenticationPrincipal JwtClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(publishStatusTracker.subscribe(claims.userId()));
+    }
+}
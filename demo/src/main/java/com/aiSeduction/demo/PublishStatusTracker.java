@@ -0,0 +1,376 @@
+package com.aiSeduction.demo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Follows TikTok's asynchronous publish step for every completed upload. In-flight publish ids are
+// kept in memory per user, with one due-time queue across all of them. A single scheduled tick takes
+// whatever is due, within a global request budget and TikTok's per-token quota, and hands each user's
+// share to the outbound executor as one batch. Fresh posts are polled often, older ones less and less.
+// Status changes are persisted on the upload session and pushed to the owner's SSE streams.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PublishStatusTracker {
+
+    // Same set as PublishStatusData.isFinal
+    static final List<String> FINAL_STATUSES = List.of("SEND_TO_USER_INBOX", "PUBLISH_COMPLETE", "FAILED");
+
+    private final RestTemplate restTemplate;
+    private final TikTokUploadConfig uploadConfig;
+    private final UserRepository userRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final VideoPreprocessor videoPreprocessor;
+    private final AsyncTaskExecutor outboundExecutor;
+    private final OutboundMetrics metrics;
+
+    @Value("${tiktok.publish-status.enabled:true}")
+    private boolean enabled;
+
+    // Status fetches per second across all users
+    @Value("${tiktok.publish-status.requests-per-second:20}")
+    private int requestsPerSecond;
+
+    // TikTok allows 30 status fetches per minute per user access token
+    @Value("${tiktok.publish-status.per-user-requests-per-minute:30}")
+    private int perUserRequestsPerMinute;
+
+    @Value("${tiktok.publish-status.min-interval:PT5S}")
+    private Duration minInterval;
+
+    @Value("${tiktok.publish-status.max-interval:PT5M}")
+    private Duration maxInterval;
+
+    // Poll interval as a share of the post's age: at 0.2 a ten minute old post is checked every two minutes
+    @Value("${tiktok.publish-status.age-factor:0.2}")
+    private double ageFactor;
+
+    @Value("${tiktok.publish-status.max-age:PT24H}")
+    private Duration maxAge;
+
+    @Value("${tiktok.publish-status.sse-timeout:PT30M}")
+    private Duration sseTimeout;
+
+    public record Update(String publishId, String status, String failReason, List<Long> postIds) {
+    }
+
+    private static final class Tracked {
+        private final Long userId;
+        private final Long sessionId;
+        private final String publishId;
+        private final long startedAt;
+        private long nextPollAt;
+        private volatile Update last;
+
+        Tracked(Long userId, Long sessionId, String publishId, long startedAt, Update last) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.publishId = publishId;
+            this.startedAt = startedAt;
+            this.last = last;
+        }
+    }
+
+    private final Map<Long, Map<String, Tracked>> byUser = new ConcurrentHashMap<>();
+    // Guarded by itself; an entry is either in here or being polled, never both
+    private final PriorityQueue<Tracked> due = new PriorityQueue<>(Comparator.comparingLong(tracked -> tracked.nextPollAt));
+    private final Map<Long, TokenBucket> userBudgets = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private TokenBucket requestBudget;
+
+    @PostConstruct
+    void init() {
+        requestBudget = new TokenBucket(requestsPerSecond, Duration.ofSeconds(1));
+    }
+
+    // Picks up uploads that finished before a restart and have no final status yet
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        if (!enabled) {
+            return;
+        }
+        List<UploadSession> awaiting = uploadSessionRepository.findAwaitingPublish(
+                UploadSession.Status.COMPLETED, LocalDateTime.now().minus(maxAge), FINAL_STATUSES);
+        awaiting.forEach(this::track);
+        if (!awaiting.isEmpty()) {
+            log.info("Resumed publish status tracking for {} uploads", awaiting.size());
+        }
+    }
+
+    public void track(UploadSession session) {
+        if (!enabled || session.getPublishId() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long startedAt = session.getUpdatedAt() != null
+                ? session.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : now;
+        Tracked tracked = new Tracked(session.getUserId(), session.getId(), session.getPublishId(), startedAt,
+                new Update(session.getPublishId(), session.getPublishStatus(), null, List.of()));
+
+        Map<String, Tracked> forUser = byUser.compute(session.getUserId(), (id, existing) -> {
+            Map<String, Tracked> entries = existing != null ? existing : new ConcurrentHashMap<>();
+            entries.putIfAbsent(tracked.publishId, tracked);
+            return entries;
+        });
+        if (forUser.get(tracked.publishId) == tracked) {
+            schedule(tracked, nextPollAt(tracked, now));
+        }
+    }
+
+    public List<Update> inFlight(Long userId) {
+        Map<String, Tracked> forUser = byUser.get(userId);
+        if (forUser == null) {
+            return List.of();
+        }
+        return forUser.values().stream().map(tracked -> tracked.last).toList();
+    }
+
+    public int trackedCount() {
+        return byUser.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        subscribers.compute(userId, (id, existing) -> {
+            List<SseEmitter> emitters = existing != null ? existing : new CopyOnWriteArrayList<>();
+            emitters.add(emitter);
+            return emitters;
+        });
+        Runnable unsubscribe = () -> unsubscribe(userId, emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        // Current state first, so a client that connects late still sees where its posts are
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(inFlight(userId)));
+        } catch (IOException e) {
+            unsubscribe.run();
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${tiktok.publish-status.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<Long, List<Tracked>> batches = new HashMap<>();
+        List<Tracked> overQuota = new ArrayList<>();
+        synchronized (due) {
+            while (!due.isEmpty() && due.peek().nextPollAt <= now) {
+                Tracked tracked = due.peek();
+                if (!isTracked(tracked)) {
+                    due.poll();
+                    continue;
+                }
+                // A user over quota is set aside without touching the global budget; otherwise both
+                // tokens are taken together (user buckets are only used here, under this lock)
+                TokenBucket userBudget = userBudgets.computeIfAbsent(tracked.userId,
+                        id -> new TokenBucket(perUserRequestsPerMinute, Duration.ofMinutes(1)));
+                if (userBudget.available() < 1) {
+                    overQuota.add(due.poll());
+                    continue;
+                }
+                if (!requestBudget.tryAcquire()) {
+                    break;
+                }
+                userBudget.tryAcquire();
+                batches.computeIfAbsent(tracked.userId, id -> new ArrayList<>()).add(due.poll());
+            }
+            long retryAt = now + Duration.ofMinutes(1).toMillis() / perUserRequestsPerMinute;
+            for (Tracked tracked : overQuota) {
+                tracked.nextPollAt = retryAt;
+                due.add(tracked);
+            }
+        }
+
+        batches.forEach((userId, batch) -> {
+            try {
+                outboundExecutor.execute(() -> pollBatch(userId, batch));
+            } catch (RejectedExecutionException e) {
+                log.warn("Outbound executor full, {} publish status checks for user {} deferred", batch.size(), userId);
+                batch.forEach(tracked -> schedule(tracked, now + minInterval.toMillis()));
+            }
+        });
+    }
+
+    // One user's due posts, checked one after another with that user's token
+    private void pollBatch(Long userId, List<Tracked> batch) {
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isEmpty()) {
+            batch.forEach(this::untrack);
+            return;
+        }
+        String accessToken = user.get().getTiktokAccessToken();
+        for (int i = 0; i < batch.size(); i++) {
+            Tracked tracked = batch.get(i);
+            try {
+                apply(tracked, fetch(accessToken, tracked.publishId));
+            } catch (CircuitOpenException e) {
+                // TikTok is failing for everyone; the rest of the batch waits for the breaker too
+                long retryAt = System.currentTimeMillis() + e.getRetryAfter().toMillis();
+                batch.subList(i, batch.size()).forEach(rest -> schedule(rest, retryAt));
+                return;
+            } catch (Exception e) {
+                retryOrDrop(tracked, e);
+            }
+        }
+    }
+
+    // 4xx other than 401 and 429 will not change on retry. A 401 can, once the token refresher
+    // has run, so it is retried like any other failure, but never beyond max-age.
+    private void retryOrDrop(Tracked tracked, Exception error) {
+        long now = System.currentTimeMillis();
+        if (error instanceof HttpClientErrorException http
+                && http.getStatusCode().value() != 401 && http.getStatusCode().value() != 429) {
+            log.warn("Stopped tracking publish {}: status check rejected with {}", tracked.publishId, http.getStatusCode());
+            untrack(tracked);
+        } else if (now - tracked.startedAt > maxAge.toMillis()) {
+            log.warn("Stopped tracking publish {} after {} h of failing status checks: {}",
+                    tracked.publishId, maxAge.toHours(), error.getMessage());
+            untrack(tracked);
+        } else {
+            log.warn("Publish status check for {} failed: {}", tracked.publishId, error.getMessage());
+            schedule(tracked, nextPollAt(tracked, now));
+        }
+    }
+
+    private TikTokApi.PublishStatusData fetch(String accessToken, String publishId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        TikTokApi.PublishStatusResponse response = metrics.record("tiktok", "publish_status", () -> restTemplate.exchange(
+                uploadConfig.getStatusUrl(),
+                HttpMethod.POST,
+                new HttpEntity<>(new TikTokApi.PublishStatusRequest(publishId), headers),
+                TikTokApi.PublishStatusResponse.class
+        ).getBody());
+
+        if (response == null || response.data() == null) {
+            throw new RuntimeException("Publish status fetch failed: empty response");
+        }
+        if (response.error() != null && !response.error().isOk()) {
+            throw new RuntimeException("Publish status fetch failed: " + response.error().code());
+        }
+        return response.data();
+    }
+
+    private void apply(Tracked tracked, TikTokApi.PublishStatusData data) {
+        Update update = new Update(tracked.publishId, data.status(), data.failReason(),
+                data.publicalyAvailablePostId() != null ? data.publicalyAvailablePostId() : List.of());
+        if (!Objects.equals(update.status(), tracked.last.status())) {
+            tracked.last = update;
+            uploadSessionRepository.updatePublishStatus(tracked.sessionId, update.status());
+            metrics.increment("tiktok.publish.status", "status", String.valueOf(update.status()));
+            log.info("Publish {} for user {} is now {}", tracked.publishId, tracked.userId, update.status());
+            notify(tracked.userId, update);
+            if ("FAILED".equals(update.status())) {
+                // Otherwise later posts of the same content would be deduplicated onto this failed one
+                videoPreprocessor.forgetPosted(tracked.userId, tracked.publishId);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (data.isFinal()) {
+            untrack(tracked);
+        } else if (now - tracked.startedAt > maxAge.toMillis()) {
+            log.warn("Stopped tracking publish {} after {} h, last status {}",
+                    tracked.publishId, maxAge.toHours(), update.status());
+            untrack(tracked);
+        } else {
+            schedule(tracked, nextPollAt(tracked, now));
+        }
+    }
+
+    private void notify(Long userId, Update update) {
+        List<SseEmitter> emitters = subscribers.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(update));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; drop it rather than failing the poll
+                unsubscribe(userId, emitter);
+            }
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void schedule(Tracked tracked, long at) {
+        synchronized (due) {
+            tracked.nextPollAt = at;
+            due.add(tracked);
+        }
+    }
+
+    private boolean isTracked(Tracked tracked) {
+        Map<String, Tracked> forUser = byUser.get(tracked.userId);
+        return forUser != null && forUser.get(tracked.publishId) == tracked;
+    }
+
+    private void untrack(Tracked tracked) {
+        Map<String, Tracked> remaining = byUser.computeIfPresent(tracked.userId, (id, forUser) -> {
+            forUser.remove(tracked.publishId, tracked);
+            return forUser.isEmpty() ? null : forUser;
+        });
+        if (remaining == null) {
+            userBudgets.remove(tracked.userId);
+        }
+    }
+
+    private long nextPollAt(Tracked tracked, long now) {
+        long interval = interval(Duration.ofMillis(now - tracked.startedAt), minInterval, maxInterval, ageFactor).toMillis();
+        // +-10% so posts uploaded in the same burst drift apart instead of polling in lockstep
+        long jitter = (long) (interval * ThreadLocalRandom.current().nextDouble(-0.1, 0.1));
+        return now + interval + jitter;
+    }
+
+    static Duration interval(Duration age, Duration min, Duration max, double ageFactor) {
+        long millis = (long) (age.toMillis() * ageFactor);
+        return Duration.ofMillis(Math.max(min.toMillis(), Math.min(max.toMillis(), millis)));
+    }
+}
@@ -0,0 +1,20 @@
+package com.aiSeduction.demo;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Sends connections for @Transactional(readOnly = true) work to the replica and everything else
+// to the primary. Must sit behind a LazyConnectionDataSourceProxy: the transaction manager opens
+// its connection before the read-only flag is published, so the lookup has to be deferred to the
+// first statement.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
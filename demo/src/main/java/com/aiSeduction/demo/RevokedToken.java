@@ -0,0 +1,28 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    @Id
+    @Column(length = 64)
+    private String tokenId;
+
+    private Long userId;
+
+    // Rows can be purged once the token would have expired anyway
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime revokedAt = LocalDateTime.now();
+}
@@ -0,0 +1,64 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scheduled_posts", indexes = {
+    @Index(name = "idx_scheduled_posts_status_time", columnList = "status, scheduledAt"),
+    @Index(name = "idx_scheduled_posts_caption_time", columnList = "captionStatus, scheduledAt"),
+    @Index(name = "idx_scheduled_posts_user_time", columnList = "userId, scheduledAt")
+})
+// Only changed columns are written, so caption write-back leaves the dispatch columns alone; dispatch
+// in turn writes only its own columns (ScheduledPostRepository.updateDispatch)
+@DynamicUpdate
+@Data
+@NoArgsConstructor
+public class ScheduledPost {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    @Column(length = 1024)
+    private String videoPath;
+
+    @Column(length = 2200)
+    private String caption;
+
+    @Column(length = 500)
+    private String hashtags;
+
+    // What the video is about; fed to caption generation when no caption was given
+    @Column(length = 500)
+    private String captionTopic;
+
+    @Enumerated(EnumType.STRING)
+    private CaptionStatus captionStatus = CaptionStatus.PROVIDED;
+
+    private LocalDateTime scheduledAt;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    private String publishId;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public enum Status {
+        PENDING, DISPATCHED, UPLOADED, FAILED
+    }
+
+    public enum CaptionStatus {
+        PROVIDED, PENDING, GENERATED
+    }
+}
@@ -0,0 +1,52 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The signed-in user's scheduled posts, newest first. Uploads land in the TikTok inbox as drafts,
+// so this is where the user picks up the caption and hashtags to finish each post with.
+@RestController
+@RequestMapping("/api/scheduled-posts")
+@RequiredArgsConstructor
+public class ScheduledPostController {
+
+    private final ScheduledPostRepository scheduledPostRepository;
+
+    public record ScheduledPostView(Long id, LocalDateTime scheduledAt, ScheduledPost.Status status,
+                                    String caption, String hashtags, ScheduledPost.CaptionStatus captionStatus,
+                                    String publishId, String lastError) {
+
+        static ScheduledPostView of(ScheduledPost post) {
+            return new ScheduledPostView(post.getId(), post.getScheduledAt(), post.getStatus(), post.getCaption(),
+                    post.getHashtags(), post.getCaptionStatus(), post.getPublishId(), post.getLastError());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> list(@AuthenticationPrincipal JwtClaims claims,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "50") int size) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<ScheduledPostView> posts = scheduledPostRepository
+                .findByUserIdOrderByScheduledAtDesc(claims.userId(), PageRequest.of(page, Math.min(size, 200)))
+                .stream().map(ScheduledPostView::of).toList();
+        Map<String, Object> response = new HashMap<>();
+        response.put("posts", posts);
+        response.put("page", page);
+        return ResponseEntity.ok(response);
+    }
+}
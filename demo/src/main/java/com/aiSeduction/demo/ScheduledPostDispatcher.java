@@ -0,0 +1,140 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps pending posts for the next horizon in an in-memory timing wheel and triggers their
+// outbox events as they come due, so uploads start on time rather than on the next relay poll.
+// One tick advances the wheel for all posts at once.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledPostDispatcher {
+
+    private final ScheduledPostRepository scheduledPostRepository;
+    private final OutboxRelay outboxRelay;
+
+    @Value("${scheduler.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${scheduler.wheel-size:64}")
+    private int wheelSize;
+
+    @Value("${scheduler.horizon:PT6H}")
+    private Duration horizon;
+
+    @Value("${scheduler.batch-size:200}")
+    private int batchSize;
+
+    private final Set<Long> inWheel = ConcurrentHashMap.newKeySet();
+    private TimingWheel<Long> wheel;
+    private LocalDateTime loadedUntil;
+
+    // Overdue posts are dispatched after the lock is released, as in tick(), so their DB queries and
+    // outbox triggers never hold up the wheel
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> overdue = new ArrayList<>();
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now();
+            wheel = new TimingWheel<>(tickMs, wheelSize, 4, toEpochMs(now));
+            inWheel.clear();
+            loadedUntil = now.plus(horizon);
+
+            // One range scan over (status, scheduledAt) covers overdue posts and everything in the horizon
+            for (ScheduledPostRepository.Slot slot : scheduledPostRepository
+                    .findByStatusAndScheduledAtLessThanOrderByScheduledAtAsc(ScheduledPost.Status.PENDING, loadedUntil)) {
+                addSlot(slot.getId(), slot.getScheduledAt(), overdue);
+            }
+            log.info("Timing wheel rebuilt with {} pending posts, {} overdue", wheel.size(), overdue.size());
+        }
+        dispatch(overdue);
+    }
+
+    // Called once when a post is created; posts beyond the horizon are picked up by extendHorizon.
+    // Posts are never rescheduled, so a post already in the wheel keeps its slot.
+    public void register(ScheduledPost post) {
+        List<Long> overdue = new ArrayList<>();
+        synchronized (this) {
+            if (wheel == null || post.getStatus() != ScheduledPost.Status.PENDING
+                    || !post.getScheduledAt().isBefore(loadedUntil)) {
+                return;
+            }
+            addSlot(post.getId(), post.getScheduledAt(), overdue);
+        }
+        dispatch(overdue);
+    }
+
+    @Scheduled(fixedRateString = "${scheduler.tick-ms:1000}")
+    public void tick() {
+        List<Long> due = new ArrayList<>();
+        synchronized (this) {
+            if (wheel == null) {
+                return;
+            }
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        dispatch(due);
+    }
+
+    @Scheduled(fixedDelayString = "${scheduler.refill-interval-ms:60000}")
+    public void extendHorizon() {
+        List<Long> overdue = new ArrayList<>();
+        synchronized (this) {
+            if (wheel == null) {
+                return;
+            }
+            // Loaded under the lock so a post registered meanwhile cannot fall between the old and new horizon
+            LocalDateTime until = LocalDateTime.now().plus(horizon);
+            for (ScheduledPostRepository.Slot slot : scheduledPostRepository
+                    .findByStatusAndScheduledAtGreaterThanEqualAndScheduledAtLessThanOrderByScheduledAtAsc(
+                            ScheduledPost.Status.PENDING, loadedUntil, until)) {
+                addSlot(slot.getId(), slot.getScheduledAt(), overdue);
+            }
+            loadedUntil = until;
+        }
+        dispatch(overdue);
+    }
+
+    private void addSlot(Long postId, LocalDateTime scheduledAt, List<Long> overdue) {
+        if (!inWheel.add(postId)) {
+            return;
+        }
+        if (!wheel.add(postId, toEpochMs(scheduledAt))) {
+            overdue.add(postId);
+        }
+    }
+
+    private void dispatch(List<Long> dueIds) {
+        for (int from = 0; from < dueIds.size(); from += batchSize) {
+            List<Long> batch = dueIds.subList(from, Math.min(dueIds.size(), from + batchSize));
+            batch.forEach(inWheel::remove);
+
+            // Status is re-checked here so cancelled or already-handled posts are skipped. The
+            // outbox event is claimed conditionally, so a post the relay already holds is not run twice
+            for (ScheduledPost post : scheduledPostRepository
+                    .findByIdInAndStatusOrderByScheduledAtAsc(batch, ScheduledPost.Status.PENDING)) {
+                if (!outboxRelay.trigger(OutboxEvent.uploadKey(post.getId()))) {
+                    log.debug("Scheduled post {} not claimable now, left to the outbox relay", post.getId());
+                }
+            }
+        }
+    }
+
+    private static long toEpochMs(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,47 @@
+package com.aiSeduction.demo;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScheduledPostRepository extends JpaRepository<ScheduledPost, Long> {
+
+    // Id + time only, so rebuilding the timing wheel does not hydrate full entities
+    interface Slot {
+        Long getId();
+        LocalDateTime getScheduledAt();
+    }
+
+    List<Slot> findByStatusAndScheduledAtLessThanOrderByScheduledAtAsc(
+            ScheduledPost.Status status, LocalDateTime before);
+
+    List<Slot> findByStatusAndScheduledAtGreaterThanEqualAndScheduledAtLessThanOrderByScheduledAtAsc(
+            ScheduledPost.Status status, LocalDateTime from, LocalDateTime before);
+
+    List<ScheduledPost> findByIdInAndStatusOrderByScheduledAtAsc(Collection<Long> ids, ScheduledPost.Status status);
+
+    List<ScheduledPost> findByUserIdOrderByScheduledAtDesc(Long userId, Pageable pageable);
+
+    // Soonest first, so the posts that go out next get their captions first
+    List<ScheduledPost> findByCaptionStatusAndStatusOrderByScheduledAtAsc(
+            ScheduledPost.CaptionStatus captionStatus, ScheduledPost.Status status, Pageable pageable);
+
+    // Dispatch-owned columns only. Saving the whole entity would write back the caption it was loaded
+    // with, undoing a caption CaptionBatchService generated in the meantime.
+    @Modifying
+    @Transactional
+    @Query("update ScheduledPost p set p.status = :status, p.publishId = :publishId, p.lastError = :lastError,"
+            + " p.updatedAt = :updatedAt where p.id = :id")
+    int updateDispatch(@Param("id") Long id, @Param("status") ScheduledPost.Status status,
+                       @Param("publishId") String publishId, @Param("lastError") String lastError,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+}
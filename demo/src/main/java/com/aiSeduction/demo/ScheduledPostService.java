@@ -0,0 +1,71 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class ScheduledPostService {
+
+    private final ScheduledPostRepository scheduledPostRepository;
+    private final ScheduledPostDispatcher dispatcher;
+    private final OutboxRelay outboxRelay;
+
+    @Transactional
+    public ScheduledPost schedule(Long userId, String videoPath, String caption, LocalDateTime scheduledAt) {
+        return schedule(userId, videoPath, caption, null, scheduledAt);
+    }
+
+    // With no caption, one is generated by CaptionBatchService from the topic (or the file name).
+    // The upload's outbox event commits with the post, so an accepted post is never lost.
+    @Transactional
+    public ScheduledPost schedule(Long userId, String videoPath, String caption, String captionTopic,
+                                  LocalDateTime scheduledAt) {
+        ScheduledPost post = new ScheduledPost();
+        post.setUserId(userId);
+        post.setVideoPath(videoPath);
+        post.setCaption(caption);
+        post.setScheduledAt(scheduledAt);
+        if (caption == null || caption.isBlank()) {
+            post.setCaptionStatus(ScheduledPost.CaptionStatus.PENDING);
+            post.setCaptionTopic(captionTopic != null ? captionTopic : String.valueOf(Path.of(videoPath).getFileName()));
+        }
+
+        ScheduledPost saved = scheduledPostRepository.save(post);
+        outboxRelay.enqueue(OutboxEvent.Type.UPLOAD_POST, saved.getId(), userId,
+                OutboxEvent.uploadKey(saved.getId()), null, scheduledAt);
+        // The wheel may fire straight away, so only hand the post over once the event is visible
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.register(saved);
+            }
+        });
+        return saved;
+    }
+
+    // One transaction for the whole batch; with hibernate.jdbc.batch_size the updates go out as JDBC batches
+    @Transactional
+    public int applyGeneratedCaptions(Map<Long, GeneratedCaption> captions) {
+        int applied = 0;
+        for (ScheduledPost post : scheduledPostRepository.findAllById(captions.keySet())) {
+            if (post.getCaptionStatus() != ScheduledPost.CaptionStatus.PENDING) {
+                continue;
+            }
+            GeneratedCaption generated = captions.get(post.getId());
+            post.setCaption(generated.caption());
+            post.setHashtags(generated.hashtags());
+            post.setCaptionStatus(ScheduledPost.CaptionStatus.GENERATED);
+            post.setUpdatedAt(LocalDateTime.now());
+            applied++;
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,86 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Uploads a scheduled post for an UPLOAD_POST outbox event. Safe to repeat: an already uploaded
+// post is left alone, and a half-finished upload resumes from its UploadSession.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledPostUploadHandler implements OutboxHandler {
+
+    private final ScheduledPostRepository scheduledPostRepository;
+    private final UserRepository userRepository;
+    private final TikTokUploadService uploadService;
+    private final TikTokTokenRefresher tokenRefresher;
+    private final VideoPreprocessor videoPreprocessor;
+
+    @Override
+    public OutboxEvent.Type type() {
+        return OutboxEvent.Type.UPLOAD_POST;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        ScheduledPost post = scheduledPostRepository.findById(event.getAggregateId()).orElse(null);
+        if (post == null || post.getStatus() == ScheduledPost.Status.UPLOADED) {
+            return;
+        }
+        post.setStatus(ScheduledPost.Status.DISPATCHED);
+        saveDispatch(post);
+
+        try {
+            User user = userRepository.findById(post.getUserId())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            // Normally the background refresher got there first; if not, wait on the shared refresh
+            if (tokenRefresher.needsRefresh(user) && !user.getTiktokTokenExpiry().isAfter(LocalDateTime.now())) {
+                tokenRefresher.refresh(user.getId()).get(1, TimeUnit.MINUTES);
+                user = userRepository.findById(user.getId()).orElse(user);
+            }
+
+            VideoPreprocessor.PreparedVideo video = videoPreprocessor.prepare(Path.of(post.getVideoPath()));
+            Optional<PostedContent> posted = videoPreprocessor.findPosted(user.getId(), video);
+            if (posted.isPresent()) {
+                // Same content already went to this account; point at that post instead of uploading again
+                post.setPublishId(posted.get().getPublishId());
+                log.info("Scheduled post {} skipped, content already posted as {}", post.getId(), posted.get().getPublishId());
+            } else {
+                UploadSession session = uploadService.uploadVideo(user, video.path());
+                videoPreprocessor.recordPosted(user.getId(), video, session.getPublishId());
+                post.setPublishId(session.getPublishId());
+                log.info("Scheduled post {} uploaded, publish id {}", post.getId(), session.getPublishId());
+            }
+            post.setStatus(ScheduledPost.Status.UPLOADED);
+            post.setLastError(null);
+        } catch (Exception e) {
+            // The outbox decides whether this is retried; the post just records the latest error
+            post.setLastError(e.getMessage());
+            throw e;
+        } finally {
+            saveDispatch(post);
+        }
+    }
+
+    private void saveDispatch(ScheduledPost post) {
+        post.setUpdatedAt(LocalDateTime.now());
+        scheduledPostRepository.updateDispatch(post.getId(), post.getStatus(), post.getPublishId(),
+                post.getLastError(), post.getUpdatedAt());
+    }
+
+    @Override
+    public void onDeadLetter(OutboxEvent event) {
+        scheduledPostRepository.findById(event.getAggregateId()).ifPresent(post -> {
+            post.setStatus(ScheduledPost.Status.FAILED);
+            post.setLastError(event.getLastError());
+            saveDispatch(post);
+            log.error("Scheduled post {} failed permanently: {}", post.getId(), event.getLastError());
+        });
+    }
+}
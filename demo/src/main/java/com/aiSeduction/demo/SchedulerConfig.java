@@ -0,0 +1,47 @@
+package com.aiSeduction.demo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class SchedulerConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor uploadExecutor(@Value("${scheduler.upload-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // Runs work that mostly waits on outbound HTTP, such as relaying Gemini streams to SSE clients
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor outboundExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("outbound-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    @Bean(name = "outboundExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformOutboundExecutor(@Value("${outbound.executor-threads:32}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1_000);
+        executor.setThreadNamePrefix("outbound-");
+        return executor;
+    }
+}
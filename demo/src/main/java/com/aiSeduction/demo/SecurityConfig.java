@@ -3,37 +3,53 @@ package com.aiSeduction.demo;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     
+    // BCrypt with a cost calibrated at startup (see PasswordHashingService)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingService passwordHashingService) {
+        return passwordHashingService.encoder();
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtUtil jwtUtil,
+                                           TokenRevocationService tokenRevocationService,
+                                           Environment environment) throws Exception {
+        List<String> open = new ArrayList<>(List.of("/auth/**", "/h2-console/**", "/hello", "/actuator/health"));
+        // The TikTok stand-in is only open when it is actually running
+        if (environment.acceptsProfiles(Profiles.of("upload-stub"))) {
+            open.add("/stub/**");
+        }
         http.cors().and()
             .csrf().disable()
             .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             .and()
             .authorizeHttpRequests(authz -> authz
-                 .requestMatchers("/auth/**", "/h2-console/**", "/hello").permitAll()
+                 .requestMatchers(open.toArray(String[]::new)).permitAll()
+                // Metrics name every downstream host and its error rates; scrape with an admin token
+                .requestMatchers("/api/outbox/**", "/actuator/**").hasRole(User.Role.ADMIN.name())
                 .anyRequest().authenticated()
             )
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, tokenRevocationService),
+                    UsernamePasswordAuthenticationFilter.class)
             .headers().frameOptions().disable(); // For H2 console
         
         return http.build();
@@ -0,0 +1,84 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+// Request/response bodies of the TikTok Open API calls we make, bound by the shared ObjectMapper
+public final class TikTokApi {
+
+    private TikTokApi() {
+    }
+
+    // Every Content API response carries this; code "ok" means success
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record ApiError(String code, String message, String logId) {
+        public boolean isOk() {
+            return code == null || "ok".equals(code);
+        }
+    }
+
+    // /v2/oauth/token/ is OAuth-style instead: a plain "error" string only on failure
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record TokenResponse(String openId, String accessToken, Long expiresIn, String refreshToken,
+                                Long refreshExpiresIn, String scope, String tokenType,
+                                String error, String errorDescription) {
+    }
+
+    public record UserInfoRequest(List<String> fields) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record UserInfoResponse(UserInfoData data, ApiError error) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record UserInfoData(UserInfo user) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record UserInfo(String openId, String username, String displayName, String avatarUrl) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record UploadInitRequest(SourceInfo sourceInfo) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record SourceInfo(String source, long videoSize, long chunkSize, int totalChunkCount) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record UploadInitResponse(UploadInitData data, ApiError error) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record UploadInitData(String publishId, String uploadUrl) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record PublishStatusRequest(String publishId) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PublishStatusResponse(PublishStatusData data, ApiError error) {
+    }
+
+    // "publicaly" is TikTok's spelling
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record PublishStatusData(String status, String failReason, List<Long> publicalyAvailablePostId,
+                                    Long uploadedBytes) {
+        // Inbox uploads stop at SEND_TO_USER_INBOX until the user finishes the post in the app, which
+        // can take days, so for our purposes that is as far as a post goes
+        public boolean isFinal() {
+            return "SEND_TO_USER_INBOX".equals(status) || "PUBLISH_COMPLETE".equals(status) || "FAILED".equals(status);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.aiSeduction.demo;
+
+// TikTok rejected a refresh token for good (invalid_grant); retrying the same token cannot succeed
+public class TikTokGrantRevokedException extends RuntimeException {
+    public TikTokGrantRevokedException(String message) {
+        super(message);
+    }
+}
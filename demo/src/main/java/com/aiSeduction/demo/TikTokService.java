@@ -1,25 +1,19 @@
 package com.aiSeduction.demo;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -28,22 +22,25 @@ public class TikTokService {
 
     private final TikTokOAuthConfig tiktokConfig;
     private final UserRepository userRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, String> pkceStorage = new ConcurrentHashMap<>();
+    private final UserExistenceCache userExistenceCache;
+    private final RestTemplate restTemplate;
+    private final PkceStateStore pkceStateStore;
+    private final PkceGenerator pkceGenerator;
+    private final OutboundMetrics metrics;
 
     // CORRECT TikTok API endpoints (use production endpoints for sandbox too)
     private static final String AUTH_URL = "https://www.tiktok.com/v2/auth/authorize/";
     private static final String TOKEN_URL = "https://open.tiktokapis.com/v2/oauth/token/";
     private static final String USER_INFO_URL = "https://open.tiktokapis.com/v2/user/info/";
+    private static final TikTokApi.UserInfoRequest USER_INFO_FIELDS =
+            new TikTokApi.UserInfoRequest(List.of("open_id", "username", "display_name", "avatar_url"));
 
     public String getTikTokAuthUrl() {
         try {
             String state = UUID.randomUUID().toString();
-            String codeVerifier = generateCodeVerifier();
-            String codeChallenge = generateCodeChallenge(codeVerifier);
+            PkceGenerator.PkcePair pkce = pkceGenerator.next();
 
-            pkceStorage.put(state, codeVerifier);
+            pkceStateStore.put(state, pkce.verifier());
 
             // Use PRODUCTION endpoint (sandbox apps work with production endpoints)
             String authUrl = UriComponentsBuilder.fromUriString(AUTH_URL)
@@ -52,7 +49,7 @@ public class TikTokService {
                     .queryParam("response_type", "code")
                     .queryParam("redirect_uri", tiktokConfig.getRedirectUri())
                     .queryParam("state", state)
-                    .queryParam("code_challenge", codeChallenge)
+                    .queryParam("code_challenge", pkce.challenge())
                     .queryParam("code_challenge_method", "S256")
                     .build()
                     .toUriString();
@@ -66,42 +63,47 @@ public class TikTokService {
     }
 
     public User handleTikTokCallback(String code, String state) {
-        log.info("Handling TikTok callback - code: {}, state: {}", code, state);
+        log.info("Handling TikTok callback - code: {}, state: {}", OutboundMetrics.mask(code), state);
         
-        if (state != null && !pkceStorage.containsKey(state)) {
-            log.error("Invalid state parameter: {}", state);
-            throw new RuntimeException("Invalid state parameter");
-        }
-        
-        String codeVerifier = state != null ? pkceStorage.remove(state) : "fallback_verifier";
+        // Consumed here, so an expired, unknown or replayed state is rejected
+        String codeVerifier = state != null
+                ? pkceStateStore.take(state).orElseThrow(() -> {
+                    log.error("Invalid state parameter: {}", state);
+                    return new RuntimeException("Invalid state parameter");
+                })
+                : "fallback_verifier";
         log.debug("Retrieved code verifier for state: {}", state);
 
         try {
             // Try actual token exchange first
-            String accessToken = exchangeCodeForToken(code, codeVerifier);
-            log.info("Successfully obtained access token: {}", accessToken);
+            TikTokToken token = exchangeCodeForToken(code, codeVerifier);
+            log.info("Successfully obtained access token: {}", OutboundMetrics.mask(token.accessToken()));
             
             // Get actual user info from TikTok API
-            JsonNode userInfo = getTikTokUserInfo(accessToken);
+            TikTokApi.UserInfo userInfo = getTikTokUserInfo(token.accessToken());
             log.info("Retrieved user info from TikTok: {}", userInfo);
             
-            return createOrUpdateTikTokUser(userInfo, accessToken);
+            User user = createOrUpdateTikTokUser(userInfo, token);
+            metrics.increment("tiktok.logins", "result", "success");
+            return user;
         } catch (Exception e) {
+            // While TikTok is known to be down the caller gets a 503 rather than a fallback account
+            CircuitOpenException.rethrowIfPresent(e);
             log.warn("Failed to authenticate with TikTok API, using fallback: {}", e.getMessage());
+            metrics.increment("tiktok.logins", "result", "fallback");
             
             // Fallback to hardcoded data if API calls fail
             String accessToken = "fallback_access_token_" + UUID.randomUUID().toString();
-            JsonNode userInfo = createMockUserInfo();
+            TikTokApi.UserInfo userInfo = createMockUserInfo();
             
-            return createOrUpdateTikTokUser(userInfo, accessToken);
+            // No refresh token, so the refresher leaves this user alone
+            TikTokToken token = new TikTokToken(null, accessToken, LocalDateTime.now().plusHours(24), null, null);
+            return createOrUpdateTikTokUser(userInfo, token);
         }
     }
 
-    private String exchangeCodeForToken(String code, String codeVerifier) {
+    private TikTokToken exchangeCodeForToken(String code, String codeVerifier) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            
             MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
             body.add("client_key", tiktokConfig.getClientId());
             body.add("client_secret", tiktokConfig.getClientSecret());
@@ -110,97 +112,129 @@ public class TikTokService {
             body.add("redirect_uri", tiktokConfig.getRedirectUri());
             body.add("code_verifier", codeVerifier);
             
-            HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                TOKEN_URL, 
-                HttpMethod.POST, 
-                request, 
-                String.class
-            );
-            
-            JsonNode responseJson = objectMapper.readTree(response.getBody());
-            
-            if (responseJson.has("error")) {
-                throw new RuntimeException("Token exchange failed: " + responseJson.get("error").asText());
-            }
-            
-            return responseJson.get("access_token").asText();
+            return metrics.record("tiktok", "token_exchange", () -> requestToken(body));
         } catch (Exception e) {
             log.error("Token exchange failed: {}", e.getMessage());
             throw new RuntimeException("Failed to exchange code for token", e);
         }
     }
 
-    private JsonNode getTikTokUserInfo(String accessToken) {
+    // Used by TikTokTokenRefresher; TikTok answers with a new access token and possibly a new refresh token
+    public TikTokToken refreshAccessToken(String refreshToken) {
+        try {
+            MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+            body.add("client_key", tiktokConfig.getClientId());
+            body.add("client_secret", tiktokConfig.getClientSecret());
+            body.add("grant_type", "refresh_token");
+            body.add("refresh_token", refreshToken);
+            
+            return metrics.record("tiktok", "token_refresh", () -> requestToken(body));
+        } catch (Exception e) {
+            log.error("Token refresh failed: {}", e.getMessage());
+            throw new RuntimeException("Failed to refresh TikTok access token", e);
+        }
+    }
+
+    private TikTokToken requestToken(MultiValueMap<String, String> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        
+        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
+        
+        TikTokApi.TokenResponse response;
+        try {
+            response = restTemplate.exchange(
+                TOKEN_URL,
+                HttpMethod.POST,
+                request,
+                TikTokApi.TokenResponse.class
+            ).getBody();
+        } catch (HttpClientErrorException e) {
+            // A revoked grant may also come back as a 4xx; only its body says which error it is
+            TikTokApi.TokenResponse error = tokenError(e);
+            if (error != null && "invalid_grant".equals(error.error())) {
+                throw new TikTokGrantRevokedException("Token request rejected: " + error.errorDescription());
+            }
+            throw e;
+        }
+        
+        if (response != null && "invalid_grant".equals(response.error())) {
+            throw new TikTokGrantRevokedException("Token request rejected: " + response.errorDescription());
+        }
+        if (response == null || response.error() != null || response.accessToken() == null) {
+            throw new RuntimeException("Token request failed: " + (response != null ? response.error() : "empty response"));
+        }
+        
+        return TikTokToken.fromResponse(response, LocalDateTime.now());
+    }
+
+    private static TikTokApi.TokenResponse tokenError(HttpClientErrorException e) {
+        try {
+            return e.getResponseBodyAs(TikTokApi.TokenResponse.class);
+        } catch (RuntimeException unreadable) {
+            return null;
+        }
+    }
+
+    private TikTokApi.UserInfo getTikTokUserInfo(String accessToken) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + accessToken);
             headers.setContentType(MediaType.APPLICATION_JSON);
             
-            // Build request body for user info
-            String requestBody = "{\"fields\":[\"open_id\",\"username\",\"display_name\",\"avatar_url\"]}";
-            
-            HttpEntity<String> request = new HttpEntity<>(requestBody, headers);
+            HttpEntity<TikTokApi.UserInfoRequest> request = new HttpEntity<>(USER_INFO_FIELDS, headers);
             
-            ResponseEntity<String> response = restTemplate.exchange(
+            TikTokApi.UserInfoResponse response = metrics.record("tiktok", "user_info", () -> restTemplate.exchange(
                 USER_INFO_URL,
                 HttpMethod.POST,
                 request,
-                String.class
-            );
+                TikTokApi.UserInfoResponse.class
+            ).getBody());
             
-            JsonNode responseJson = objectMapper.readTree(response.getBody());
-            
-            if (responseJson.has("error")) {
-                throw new RuntimeException("User info request failed: " + responseJson.get("error").asText());
+            // Successful responses carry error.code "ok" too, so only a different code is a failure
+            if (response == null || (response.error() != null && !response.error().isOk())) {
+                throw new RuntimeException("User info request failed: "
+                        + (response != null ? response.error().code() : "empty response"));
+            }
+            if (response.data() == null || response.data().user() == null) {
+                throw new RuntimeException("User info response has no user");
             }
             
-            return responseJson.get("data").get("user");
+            return response.data().user();
         } catch (Exception e) {
             log.error("User info request failed: {}", e.getMessage());
             throw new RuntimeException("Failed to get user info from TikTok", e);
         }
     }
 
-    private JsonNode createMockUserInfo() {
-        try {
-            String mockJson = String.format("{\"open_id\":\"%s\",\"username\":\"%s\",\"display_name\":\"%s\"}",
-                    UUID.randomUUID().toString().substring(0, 16),
-                    "test_user_" + System.currentTimeMillis(),
-                    "Test User");
-            return objectMapper.readTree(mockJson);
-        } catch (Exception e) {
-            log.error("Error creating mock user info", e);
-            throw new RuntimeException("Failed to create mock user info", e);
-        }
+    private TikTokApi.UserInfo createMockUserInfo() {
+        return new TikTokApi.UserInfo(
+                UUID.randomUUID().toString().substring(0, 16),
+                "test_user_" + System.currentTimeMillis(),
+                "Test User",
+                null);
     }
 
-    private User createOrUpdateTikTokUser(JsonNode userInfo, String accessToken) {
+    private User createOrUpdateTikTokUser(TikTokApi.UserInfo userInfo, TikTokToken token) {
         log.info("Creating/updating TikTok user with info: {}", userInfo);
         
-        if (!userInfo.has("open_id")) {
+        if (userInfo.openId() == null) {
             log.error("Missing open_id in user info: {}", userInfo);
             throw new RuntimeException("Missing open_id in user info");
         }
 
-        String tiktokId = userInfo.get("open_id").asText();
-        String username = userInfo.has("username") ? 
-            userInfo.get("username").asText() : 
-            "user_" + tiktokId.substring(0, 8);
-            
-        String displayName = userInfo.has("display_name") ? 
-            userInfo.get("display_name").asText() : 
-            username;
+        String tiktokId = userInfo.openId();
+        String username = userInfo.username() != null ? 
+            userInfo.username() : 
+            "user_" + tiktokId.substring(0, Math.min(8, tiktokId.length()));
 
         Optional<User> existingUser = userRepository.findByTiktokId(tiktokId);
 
         User user = existingUser.orElseGet(User::new);
         user.setTiktokId(tiktokId);
         user.setUsername(username);
-        user.setTiktokAccessToken(accessToken);
+        token.applyTo(user);
         user.setTiktokConnected(true);
-        user.setTiktokTokenExpiry(LocalDateTime.now().plusHours(24));
         
         if (user.getCreatedAt() == null) {
             user.setCreatedAt(LocalDateTime.now());
@@ -208,30 +242,9 @@ public class TikTokService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User savedUser = userRepository.save(user);
+        userExistenceCache.add(savedUser);
         log.info("Successfully saved user: {}", savedUser.getId());
         
         return savedUser;
     }
-
-    private String generateCodeVerifier() {
-        try {
-            byte[] randomBytes = new byte[32];
-            new SecureRandom().nextBytes(randomBytes);
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
-        } catch (Exception e) {
-            log.error("Error generating code verifier", e);
-            throw new RuntimeException("Failed to generate code verifier", e);
-        }
-    }
-
-    private String generateCodeChallenge(String codeVerifier) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashed = digest.digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(hashed);
-        } catch (Exception e) {
-            log.error("Error generating code challenge", e);
-            throw new RuntimeException("SHA-256 not available", e);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.aiSeduction.demo;
+
+import java.time.LocalDateTime;
+
+// Result of the /v2/oauth/token/ call, for both authorization_code and refresh_token grants
+public record TikTokToken(String openId, String accessToken, LocalDateTime expiresAt,
+                          String refreshToken, LocalDateTime refreshExpiresAt) {
+
+    public static TikTokToken fromResponse(TikTokApi.TokenResponse response, LocalDateTime now) {
+        return new TikTokToken(
+                response.openId(),
+                response.accessToken(),
+                now.plusSeconds(response.expiresIn() != null ? response.expiresIn() : 86_400),
+                response.refreshToken(),
+                response.refreshExpiresIn() != null ? now.plusSeconds(response.refreshExpiresIn()) : null);
+    }
+
+    public void applyTo(User user) {
+        user.setTiktokAccessToken(accessToken);
+        user.setTiktokTokenExpiry(expiresAt);
+        // TikTok may rotate the refresh token; keep the old one if it didn't send a new one
+        if (refreshToken != null) {
+            user.setTiktokRefreshToken(refreshToken);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Refreshes TikTok access tokens ahead of expiry so uploads always find a valid one.
+// Each sweep takes the soonest-expiring batch and spreads the refresh calls out with jitter;
+// concurrent refreshes for the same user share one in-flight request. The scheduler only fires the
+// refresh; the blocking TikTok call runs on the outbound executor so @Scheduled jobs keep their thread.
+// A refresh token TikTok has revoked disconnects the account, so it drops out of later sweeps.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TikTokTokenRefresher {
+
+    private final UserRepository userRepository;
+    private final TikTokService tiktokService;
+    private final TaskScheduler taskScheduler;
+    private final AsyncTaskExecutor outboundExecutor;
+
+    @Value("${tiktok.token-refresh.lead-time:PT30M}")
+    private Duration leadTime;
+
+    @Value("${tiktok.token-refresh.batch-size:100}")
+    private int batchSize;
+
+    // Average gap between refresh calls within a batch; each call lands randomly within its gap
+    @Value("${tiktok.token-refresh.spacing:PT0.2S}")
+    private Duration spacing;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<TikTokToken>> inFlight = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${tiktok.token-refresh.interval-ms:60000}")
+    public void sweep() {
+        List<Long> userIds = userRepository.findIdsWithTokenExpiringBefore(
+                LocalDateTime.now().plus(leadTime), PageRequest.of(0, batchSize));
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        Instant start = Instant.now();
+        long gapMs = Math.max(1, spacing.toMillis());
+        int scheduled = 0;
+        for (int i = 0; i < userIds.size(); i++) {
+            long offsetMs = i * gapMs + ThreadLocalRandom.current().nextLong(gapMs);
+            if (!inFlight.containsKey(userIds.get(i))) {
+                refresh(userIds.get(i), start.plusMillis(offsetMs));
+                scheduled++;
+            }
+        }
+        log.info("Scheduled {} TikTok token refreshes over {} ms", scheduled, userIds.size() * gapMs);
+    }
+
+    // Callers get the shared future and chain on it instead of blocking
+    public CompletableFuture<TikTokToken> refresh(Long userId) {
+        return refresh(userId, Instant.now());
+    }
+
+    public boolean needsRefresh(User user) {
+        return user.getTiktokRefreshToken() != null && user.getTiktokTokenExpiry() != null
+                && user.getTiktokTokenExpiry().isBefore(LocalDateTime.now().plus(leadTime));
+    }
+
+    private CompletableFuture<TikTokToken> refresh(Long userId, Instant at) {
+        CompletableFuture<TikTokToken> mine = new CompletableFuture<>();
+        CompletableFuture<TikTokToken> existing = inFlight.putIfAbsent(userId, mine);
+        if (existing != null) {
+            return existing;
+        }
+        mine.whenComplete((token, error) -> inFlight.remove(userId, mine));
+        Runnable task = () -> {
+            try {
+                mine.complete(doRefresh(userId));
+            } catch (Exception e) {
+                if (isGrantRevoked(e)) {
+                    disconnect(userId);
+                } else {
+                    log.warn("TikTok token refresh failed for user {}: {}", userId, e.getMessage());
+                }
+                mine.completeExceptionally(e);
+            }
+        };
+        taskScheduler.schedule(() -> {
+            try {
+                outboundExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                mine.completeExceptionally(e);
+            }
+        }, at);
+        return mine;
+    }
+
+    // Only invalid_grant means the refresh token is dead. Other 4xx (invalid_client, a bad scope) point at
+    // our own configuration and would disconnect every account, so they are logged and retried next sweep.
+    private static boolean isGrantRevoked(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TikTokGrantRevokedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void disconnect(Long userId) {
+        userRepository.findById(userId).ifPresent(user -> {
+            user.setTiktokRefreshToken(null);
+            user.setTiktokConnected(false);
+            user.setUpdatedAt(LocalDateTime.now());
+            userRepository.save(user);
+            log.warn("TikTok refresh token for user {} was revoked; account disconnected until the next login", userId);
+        });
+    }
+
+    private TikTokToken doRefresh(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!needsRefresh(user)) {
+            // Refreshed elsewhere since it was picked
+            return new TikTokToken(user.getTiktokId(), user.getTiktokAccessToken(), user.getTiktokTokenExpiry(),
+                    user.getTiktokRefreshToken(), null);
+        }
+
+        TikTokToken token = tiktokService.refreshAccessToken(user.getTiktokRefreshToken());
+        token.applyTo(user);
+        user.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(user);
+        log.info("Refreshed TikTok token for user {}, valid until {}", userId, token.expiresAt());
+        return token;
+    }
+}
@@ -0,0 +1,27 @@
+package com.aiSeduction.demo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "tiktok.upload")
+@Data
+public class TikTokUploadConfig {
+    private String initUrl = "https://open.tiktokapis.com/v2/post/publish/inbox/video/init/";
+    private String statusUrl = "https://open.tiktokapis.com/v2/post/publish/status/fetch/";
+    // TikTok accepts 5 MB - 64 MB chunks; the last chunk absorbs the remainder (up to 128 MB)
+    private long chunkSize = 10L * 1024 * 1024;
+    // upload_url handed out by the init call stops accepting chunks after an hour
+    private Duration uploadUrlValidity = Duration.ofMinutes(55);
+    private RateLimit rateLimit = new RateLimit();
+
+    @Data
+    public static class RateLimit {
+        // TikTok allows 6 upload init calls per minute per user access token
+        private int uploadsPerWindow = 6;
+        private Duration window = Duration.ofMinutes(1);
+    }
+}
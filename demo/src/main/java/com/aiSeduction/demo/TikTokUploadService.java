@@ -0,0 +1,205 @@
+package com.aiSeduction.demo;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TikTokUploadService {
+
+    // Limits from the TikTok Content Posting API media transfer guide
+    static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024;
+    static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    private static final MediaType VIDEO_MP4 = MediaType.valueOf("video/mp4");
+
+    private final TikTokUploadConfig uploadConfig;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final RestTemplate restTemplate;
+    private final ClientHttpRequestFactory outboundRequestFactory;
+    private final OutboundMetrics metrics;
+    private final DownstreamGuard downstreamGuard;
+    private final PublishStatusTracker publishStatusTracker;
+
+    // Uploads a local video with the FILE_UPLOAD chunk protocol. The file is read one mapped
+    // region at a time and progress is saved after every acknowledged chunk, so calling this
+    // again for the same user and file resumes where the last attempt stopped.
+    public UploadSession uploadVideo(User user, Path videoFile) {
+        try (VideoSource source = VideoSource.open(videoFile)) {
+            return uploadVideo(user, source);
+        }
+    }
+
+    // Same as above for a file that is already open, e.g. one video fanned out to many accounts
+    public UploadSession uploadVideo(User user, VideoSource source) {
+        long fileSize = source.getSize();
+        if (fileSize == 0) {
+            throw new RuntimeException("Video file is empty: " + source.getPath());
+        }
+
+        String filePath = source.getPath().toString();
+        UploadSession session = findResumableSession(user.getId(), filePath, fileSize)
+                .orElseGet(() -> initUpload(user, filePath, fileSize));
+
+        try {
+            session.setStatus(UploadSession.Status.UPLOADING);
+            int firstChunk = (int) (session.getBytesAcknowledged() / session.getChunkSize());
+            if (firstChunk > 0) {
+                log.info("Resuming upload session {} at byte {} of {}",
+                        session.getId(), session.getBytesAcknowledged(), fileSize);
+            }
+
+            for (int chunk = firstChunk; chunk < session.getTotalChunks(); chunk++) {
+                long start = chunk * session.getChunkSize();
+                long end = chunk == session.getTotalChunks() - 1 ? fileSize : start + session.getChunkSize();
+
+                putChunk(session, source.region(start, end), start, end);
+
+                session.setBytesAcknowledged(end);
+                session.setUpdatedAt(LocalDateTime.now());
+                uploadSessionRepository.save(session);
+                log.debug("Upload session {} acknowledged chunk {}/{}", session.getId(), chunk + 1, session.getTotalChunks());
+            }
+
+            session.setStatus(UploadSession.Status.COMPLETED);
+            session.setUpdatedAt(LocalDateTime.now());
+            UploadSession saved = uploadSessionRepository.save(session);
+            log.info("Upload session {} completed, publish id {}", saved.getId(), saved.getPublishId());
+            // TikTok publishes asynchronously from here on
+            publishStatusTracker.track(saved);
+            return saved;
+        } catch (IOException | RuntimeException e) {
+            // Leave the session resumable; the next call picks up at bytesAcknowledged
+            log.warn("Upload session {} interrupted at byte {}: {}",
+                    session.getId(), session.getBytesAcknowledged(), e.getMessage());
+            throw new RuntimeException("Video upload interrupted at byte " + session.getBytesAcknowledged(), e);
+        }
+    }
+
+    private Optional<UploadSession> findResumableSession(Long userId, String filePath, long fileSize) {
+        return uploadSessionRepository
+                .findFirstByUserIdAndFilePathAndFileSizeAndStatusInOrderByUpdatedAtDesc(userId, filePath, fileSize,
+                        EnumSet.of(UploadSession.Status.INITIALIZED, UploadSession.Status.UPLOADING))
+                .filter(session -> {
+                    LocalDateTime cutoff = LocalDateTime.now().minus(uploadConfig.getUploadUrlValidity());
+                    if (session.getCreatedAt().isBefore(cutoff)) {
+                        log.info("Upload session {} expired, starting a new one", session.getId());
+                        session.setStatus(UploadSession.Status.FAILED);
+                        uploadSessionRepository.save(session);
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    private UploadSession initUpload(User user, String filePath, long fileSize) {
+        long chunkSize = chunkSizeFor(fileSize);
+        int totalChunks = (int) Math.max(1, fileSize / chunkSize);
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + user.getTiktokAccessToken());
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            // The inbox endpoint takes no post_info: the user writes the caption when finishing the draft
+            // in the app, so generated captions are offered through /api/scheduled-posts instead
+            TikTokApi.UploadInitRequest body = new TikTokApi.UploadInitRequest(
+                    new TikTokApi.SourceInfo("FILE_UPLOAD", fileSize, chunkSize, totalChunks));
+
+            TikTokApi.UploadInitResponse response = metrics.record("tiktok", "upload_init", () -> restTemplate.exchange(
+                uploadConfig.getInitUrl(),
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                TikTokApi.UploadInitResponse.class
+            ).getBody());
+
+            if (response == null || response.data() == null) {
+                throw new RuntimeException("Upload init failed: empty response");
+            }
+            if (response.error() != null && !response.error().isOk()) {
+                throw new RuntimeException("Upload init failed: " + response.error().code());
+            }
+
+            UploadSession session = new UploadSession();
+            session.setUserId(user.getId());
+            session.setFilePath(filePath);
+            session.setFileSize(fileSize);
+            session.setChunkSize(chunkSize);
+            session.setTotalChunks(totalChunks);
+            session.setPublishId(response.data().publishId());
+            session.setUploadUrl(response.data().uploadUrl());
+            UploadSession saved = uploadSessionRepository.save(session);
+            log.info("Initialized upload session {} for user {}: {} bytes in {} chunks",
+                    saved.getId(), user.getId(), fileSize, totalChunks);
+            return saved;
+        } catch (Exception e) {
+            log.error("Upload init failed: {}", e.getMessage());
+            throw new RuntimeException("Failed to initialize video upload", e);
+        }
+    }
+
+    long chunkSizeFor(long fileSize) {
+        // Files under the minimum chunk size must go up as a single chunk
+        if (fileSize < MIN_CHUNK_SIZE) {
+            return fileSize;
+        }
+        long configured = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, uploadConfig.getChunkSize()));
+        return Math.min(configured, fileSize);
+    }
+
+    private void putChunk(UploadSession session, ByteBuffer region, long start, long end) throws IOException {
+        ClientHttpRequest request = outboundRequestFactory.createRequest(URI.create(session.getUploadUrl()), HttpMethod.PUT);
+        HttpHeaders headers = request.getHeaders();
+        headers.setContentType(VIDEO_MP4);
+        headers.setContentLength(end - start);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + session.getFileSize());
+
+        // Stream the mapped region straight to the socket instead of buffering it in the request
+        if (request instanceof StreamingHttpOutputMessage streaming) {
+            streaming.setBody(out -> writeRegion(region, out));
+        } else {
+            writeRegion(region, request.getBody());
+        }
+
+        Timer.Sample sample = metrics.start();
+        boolean success = false;
+        // Breaker check, host permit and latency tracking, same as calls through the RestTemplate
+        try (ClientHttpResponse response = downstreamGuard.execute(request)) {
+            int status = response.getStatusCode().value();
+            if (status != HttpStatus.PARTIAL_CONTENT.value() && status != HttpStatus.CREATED.value()
+                    && status != HttpStatus.OK.value()) {
+                throw new IOException("Chunk " + start + "-" + (end - 1) + " rejected with status " + status);
+            }
+            success = true;
+        } finally {
+            metrics.stop(sample, "tiktok", "upload_chunk", success);
+        }
+        metrics.increment("tiktok.upload.bytes", end - start);
+    }
+
+    private static void writeRegion(ByteBuffer region, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        while (region.hasRemaining()) {
+            target.write(region);
+        }
+    }
+}
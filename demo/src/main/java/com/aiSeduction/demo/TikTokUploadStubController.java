@@ -0,0 +1,137 @@
+package com.aiSeduction.demo;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for TikTok's init + chunk upload endpoints so the upload pipeline can be
+// load-tested offline. Start with --spring.profiles.active=upload-stub.
+@RestController
+@RequestMapping("/stub/tiktok")
+@Profile("upload-stub")
+@Slf4j
+public class TikTokUploadStubController {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    @Value("${stub.upload.failure-rate:0.0}")
+    private double failureRate;
+
+    // How long after the last chunk the stub reports the post as published
+    @Value("${stub.publish.delay-ms:30000}")
+    private long publishDelayMs;
+
+    private final Map<String, StubUpload> uploads = new ConcurrentHashMap<>();
+    private final Map<String, Long> completedAt = new ConcurrentHashMap<>();
+
+    @PostMapping("/v2/post/publish/inbox/video/init/")
+    public ResponseEntity<Map<String, Object>> initUpload(@RequestBody Map<String, Map<String, Object>> request) {
+        Map<String, Object> sourceInfo = request.getOrDefault("source_info", Map.of());
+        long videoSize = ((Number) sourceInfo.getOrDefault("video_size", 0)).longValue();
+
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new StubUpload(videoSize));
+
+        String uploadUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/stub/tiktok/upload/{id}")
+                .buildAndExpand(uploadId)
+                .toUriString();
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("publish_id", "v_inbox_file~stub." + uploadId);
+        data.put("upload_url", uploadUrl);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        response.put("error", Map.of("code", "ok", "message", "", "log_id", uploadId));
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/upload/{uploadId}")
+    public ResponseEntity<Void> uploadChunk(@PathVariable String uploadId, HttpServletRequest request) throws IOException {
+        StubUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Matcher range = CONTENT_RANGE.matcher(String.valueOf(request.getHeader(HttpHeaders.CONTENT_RANGE)));
+        if (!range.matches() || Long.parseLong(range.group(1)) != upload.received) {
+            log.warn("Stub upload {} got out-of-order range {}", uploadId, request.getHeader(HttpHeaders.CONTENT_RANGE));
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        }
+
+        // Drain the body without keeping it; only the byte count matters here
+        long received = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = request.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                received += read;
+            }
+        }
+
+        long expected = Long.parseLong(range.group(2)) - Long.parseLong(range.group(1)) + 1;
+        if (received != expected) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        upload.received += received;
+        if (upload.received >= upload.size) {
+            uploads.remove(uploadId);
+            completedAt.put("v_inbox_file~stub." + uploadId, System.currentTimeMillis());
+            log.info("Stub upload {} complete ({} bytes)", uploadId, upload.size);
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).build();
+    }
+
+    @PostMapping("/v2/post/publish/status/fetch/")
+    public ResponseEntity<Map<String, Object>> fetchStatus(@RequestBody Map<String, String> request) {
+        String publishId = request.get("publish_id");
+        Long completed = completedAt.get(publishId);
+
+        Map<String, Object> data = new HashMap<>();
+        if (completed == null) {
+            data.put("status", "PROCESSING_UPLOAD");
+        } else if (System.currentTimeMillis() - completed < publishDelayMs) {
+            data.put("status", "PROCESSING_DOWNLOAD");
+        } else {
+            // Uploads go through the inbox endpoint, where TikTok hands the draft to the user and stops
+            completedAt.remove(publishId);
+            data.put("status", "SEND_TO_USER_INBOX");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        response.put("error", Map.of("code", "ok", "message", "", "log_id", UUID.randomUUID().toString()));
+        return ResponseEntity.ok(response);
+    }
+
+    private static class StubUpload {
+        private final long size;
+        private volatile long received;
+
+        StubUpload(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.aiSeduction.demo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel (cascading, as in the Linux kernel timer wheel).
+// Level 0 has one slot per tick; every higher level's slot spans a full revolution of the
+// level below. Adding is O(1) and each tick touches one level-0 slot plus, once per
+// revolution, one slot of the next level that is cascaded down. Not thread-safe.
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final int levels;
+    private final List<List<ArrayDeque<Entry<T>>>> slots;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.currentTick = Math.floorDiv(startMs, tickMs);
+        this.slots = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<ArrayDeque<Entry<T>>> wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new ArrayDeque<>());
+            }
+            slots.add(wheel);
+        }
+    }
+
+    // Returns false when the deadline has already passed; the caller should run it right away.
+    public boolean add(T payload, long deadlineMs) {
+        // Round up so nothing fires before its deadline
+        long expiryTick = -Math.floorDiv(-deadlineMs, tickMs);
+        if (expiryTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(payload, expiryTick));
+        size++;
+        return true;
+    }
+
+    // Moves the clock forward to nowMs and hands every entry that came due to the sink, in deadline order.
+    public void advance(long nowMs, Consumer<T> sink) {
+        long targetTick = Math.floorDiv(nowMs, tickMs);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            ArrayDeque<Entry<T>> bucket = slots.get(0).get(index(currentTick));
+            List<Entry<T>> due = new ArrayList<>(bucket);
+            bucket.clear();
+            for (Entry<T> entry : due) {
+                if (entry.expiryTick > currentTick) {
+                    // Parked past the top level's range on a single-level wheel
+                    place(entry);
+                    continue;
+                }
+                size--;
+                sink.accept(entry.payload);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.expiryTick - currentTick;
+        long span = wheelSize;
+        for (int level = 0; level < levels; level++) {
+            if (delta < span || level == levels - 1) {
+                // Anything beyond the top level parks in its farthest slot and is re-placed on cascade
+                long tick = Math.min(entry.expiryTick, currentTick + span - 1);
+                long slot = tick / (span / wheelSize);
+                slots.get(level).get(index(slot)).add(entry);
+                return;
+            }
+            span *= wheelSize;
+        }
+    }
+
+    private void cascade(int level) {
+        if (level >= levels) {
+            return;
+        }
+        long levelTick = ticksPerSlot(level);
+        if (currentTick % levelTick != 0) {
+            return;
+        }
+        // Empty the higher level first so its entries can fall into this one
+        cascade(level + 1);
+        ArrayDeque<Entry<T>> bucket = slots.get(level).get(index(currentTick / levelTick));
+        List<Entry<T>> moving = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<T> entry : moving) {
+            place(entry);
+        }
+    }
+
+    private long ticksPerSlot(int level) {
+        long ticks = 1;
+        for (int i = 0; i < level; i++) {
+            ticks *= wheelSize;
+        }
+        return ticks;
+    }
+
+    private int index(long slot) {
+        return (int) Math.floorMod(slot, (long) wheelSize);
+    }
+
+    private record Entry<T>(T payload, long expiryTick) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.aiSeduction.demo;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+// Classic token bucket: holds up to capacity tokens and regains capacity tokens per period,
+// continuously. reserve() lets callers book a future token instead of failing, so a burst
+// is spread out to exactly the allowed rate rather than being rejected. Thread-safe.
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(long capacity, Duration period) {
+        this(capacity, period, System::nanoTime);
+    }
+
+    TokenBucket(long capacity, Duration period, LongSupplier nanoClock) {
+        if (capacity < 1 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Token bucket needs a positive capacity and period");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / period.toNanos();
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // Takes a token now or books the next free one; returns how long to wait before using it
+    public synchronized Duration reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((long) Math.ceil(-tokens / tokensPerNano));
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,80 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+// Optional JWT revocation. The common case (token not revoked) is answered by an in-memory
+// bloom filter; only bloom hits, which are rare, are confirmed against revoked_tokens.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.revocation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter revoked;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRevoked(JwtClaims claims) {
+        if (!enabled || claims.tokenId() == null) {
+            return false;
+        }
+        // Until the first refresh has built the filter every check goes to the table, so startup fails closed
+        BloomFilter filter = revoked;
+        if (filter != null && !filter.mightContain(claims.tokenId())) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(claims.tokenId());
+    }
+
+    public void revoke(JwtClaims claims) {
+        if (claims.tokenId() == null) {
+            throw new RuntimeException("Token has no id and cannot be revoked");
+        }
+        LocalDateTime expiresAt = claims.expiresAt() != null
+                ? LocalDateTime.ofInstant(claims.expiresAt(), ZoneId.systemDefault())
+                : LocalDateTime.now().plusDays(1);
+        revokedTokenRepository.save(new RevokedToken(claims.tokenId(), claims.userId(), expiresAt, LocalDateTime.now()));
+
+        BloomFilter filter = revoked;
+        if (filter != null) {
+            filter.put(claims.tokenId());
+        }
+        log.info("Revoked token {} for user {}", claims.tokenId(), claims.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int purged = revokedTokenRepository.deleteExpired(now);
+        List<String> tokenIds = revokedTokenRepository.findActiveTokenIds(now);
+
+        // Built off to the side and swapped in, so readers never see a half-filled filter
+        BloomFilter filter = new BloomFilter(Math.max(expectedRevocations, tokenIds.size() * 2L), falsePositiveRate);
+        tokenIds.forEach(filter::put);
+        revoked = filter;
+        log.debug("Revocation filter refreshed with {} tokens, purged {}", tokenIds.size(), purged);
+    }
+}
@@ -0,0 +1,107 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Posts one video to many connected accounts. The file is opened once and its mapped chunks
+// are shared by every upload; each account's uploads are paced by its own token bucket, so
+// throughput grows with the number of accounts while no single account exceeds its quota.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadFanOutService {
+
+    private final TikTokUploadService uploadService;
+    private final UserRepository userRepository;
+    private final AccountRateLimiter rateLimiter;
+    private final TikTokTokenRefresher tokenRefresher;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+    private final VideoPreprocessor videoPreprocessor;
+
+    public record Result(Long userId, boolean success, String publishId, String error) {
+
+        static Result uploaded(Long userId, String publishId) {
+            return new Result(userId, true, publishId, null);
+        }
+
+        static Result failed(Long userId, String error) {
+            return new Result(userId, false, null, error);
+        }
+    }
+
+    // Completes once every account has finished; one account failing does not affect the others
+    public CompletableFuture<List<Result>> fanOut(Path videoFile, List<Long> userIds) {
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        // Prepared once for all accounts; accounts that already have this content are skipped
+        VideoPreprocessor.PreparedVideo video = videoPreprocessor.prepare(videoFile);
+        VideoSource source = VideoSource.open(video.path());
+
+        List<CompletableFuture<Result>> uploads = new ArrayList<>(userIds.size());
+        for (Long userId : userIds.stream().distinct().toList()) {
+            User user = users.get(userId);
+            if (user == null || !user.isTiktokConnected()) {
+                uploads.add(CompletableFuture.completedFuture(Result.failed(userId, "No connected TikTok account")));
+                continue;
+            }
+            Optional<PostedContent> posted = videoPreprocessor.findPosted(userId, video);
+            if (posted.isPresent()) {
+                uploads.add(CompletableFuture.completedFuture(Result.uploaded(userId, posted.get().getPublishId())));
+                continue;
+            }
+            CompletableFuture<Result> result = new CompletableFuture<>();
+            rateLimiter.runWhenAllowed(userId, uploadExecutor, () -> upload(user, video, source, result, true),
+                    rejected -> rejected(userId, result));
+            uploads.add(result);
+        }
+
+        log.info("Fanning out {} to {} accounts", source.getPath(), uploads.size());
+        return CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                .whenComplete((done, error) -> source.close())
+                .thenApply(done -> uploads.stream().map(CompletableFuture::join).toList());
+    }
+
+    private void upload(User user, VideoPreprocessor.PreparedVideo video, VideoSource source,
+                        CompletableFuture<Result> result, boolean allowRefresh) {
+        try {
+            // Wait for the shared refresh off this worker, then retry with the reloaded user
+            if (allowRefresh && tokenRefresher.needsRefresh(user)
+                    && !user.getTiktokTokenExpiry().isAfter(LocalDateTime.now())) {
+                tokenRefresher.refresh(user.getId()).whenComplete((token, error) -> {
+                    try {
+                        uploadExecutor.execute(() -> upload(
+                                userRepository.findById(user.getId()).orElse(user), video, source, result, false));
+                    } catch (RejectedExecutionException e) {
+                        rejected(user.getId(), result);
+                    }
+                });
+                return;
+            }
+            UploadSession session = uploadService.uploadVideo(user, source);
+            videoPreprocessor.recordPosted(user.getId(), video, session.getPublishId());
+            result.complete(Result.uploaded(user.getId(), session.getPublishId()));
+        } catch (Exception e) {
+            log.warn("Fan-out upload for user {} failed: {}", user.getId(), e.getMessage());
+            result.complete(Result.failed(user.getId(), e.getMessage()));
+        }
+    }
+
+    // The upload never ran; without this the account's result, and with it the whole fan-out, never completes
+    private void rejected(Long userId, CompletableFuture<Result> result) {
+        log.warn("Upload executor full, fan-out upload for user {} not started", userId);
+        result.complete(Result.failed(userId, "Upload executor is at capacity, try again later"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.aiSeduction.demo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    // filePath is too wide for an InnoDB key, so resume lookups narrow on user and size
+    @Index(name = "idx_upload_sessions_user_size", columnList = "userId, fileSize"),
+    @Index(name = "idx_upload_sessions_status_updated", columnList = "status, updatedAt")
+})
+@Data
+@NoArgsConstructor
+public class UploadSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    @Column(length = 1024)
+    private String filePath;
+
+    private long fileSize;
+    private long chunkSize;
+    private int totalChunks;
+
+    private String publishId;
+
+    // Last status TikTok reported for publishId (PROCESSING_UPLOAD, SEND_TO_USER_INBOX, PUBLISH_COMPLETE, FAILED)
+    @Column(length = 64)
+    private String publishStatus;
+
+    @Column(length = 2048)
+    private String uploadUrl;
+
+    // always sits on a chunk boundary; the next PUT starts here
+    private long bytesAcknowledged;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.INITIALIZED;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public enum Status {
+        INITIALIZED, UPLOADING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,33 @@
+package com.aiSeduction.demo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+    Optional<UploadSession> findFirstByUserIdAndFilePathAndFileSizeAndStatusInOrderByUpdatedAtDesc(
+            Long userId, String filePath, long fileSize, Collection<UploadSession.Status> statuses);
+
+    // Completed uploads whose publish outcome is still open, for PublishStatusTracker after a restart
+    @Query("select s from UploadSession s where s.status = :status and s.updatedAt > :since"
+            + " and s.publishId is not null"
+            + " and (s.publishStatus is null or s.publishStatus not in :finalStatuses)")
+    List<UploadSession> findAwaitingPublish(@Param("status") UploadSession.Status status,
+                                            @Param("since") LocalDateTime since,
+                                            @Param("finalStatuses") Collection<String> finalStatuses);
+
+    // Touches only the status column, so it never races the upload loop's saves
+    @Modifying
+    @Transactional
+    @Query("update UploadSession s set s.publishStatus = :publishStatus where s.id = :id")
+    int updatePublishStatus(@Param("id") Long id, @Param("publishStatus") String publishStatus);
+}
@@ -7,19 +7,28 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = "uk_users_tiktok_id", columnNames = "tiktokId")
+}, indexes = {
+        // TikTokTokenRefresher range-scans tokens that expire soon
+        @Index(name = "idx_users_tiktok_token_expiry", columnList = "tiktokTokenExpiry")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
+    // Named so AuthService can tell which one a duplicate insert violated
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true)
     private String email;
     
-    @Column(unique = true)
     private String username;
     
     private String password;
@@ -0,0 +1,113 @@
+package com.aiSeduction.demo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Negative-lookup cache in front of UserRepository for "is this email/username taken?".
+// A bloom miss means the value is not in users, so the check never reaches the database;
+// only bloom hits (taken values and rare false positives) fall through to an exists query.
+// The unique constraints stay authoritative: this only saves round trips.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserExistenceCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${users.existence-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${users.existence-cache.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${users.existence-cache.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Both null until the first warm-up finishes; until then every check goes to the database
+    private volatile BloomFilter emails;
+    private volatile BloomFilter usernames;
+
+    public boolean emailTaken(String email) {
+        BloomFilter filter = emails;
+        if (filter != null && !filter.mightContain(normalize(email))) {
+            return false;
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    public boolean usernameTaken(String username) {
+        BloomFilter filter = usernames;
+        if (filter != null && !filter.mightContain(normalize(username))) {
+            return false;
+        }
+        return userRepository.existsByUsername(username);
+    }
+
+    // Called after every successful insert so this instance sees its own registrations immediately
+    public void add(User user) {
+        BloomFilter emailFilter = emails;
+        if (emailFilter != null && user.getEmail() != null) {
+            emailFilter.put(normalize(user.getEmail()));
+        }
+        BloomFilter usernameFilter = usernames;
+        if (usernameFilter != null && user.getUsername() != null) {
+            usernameFilter.put(normalize(user.getUsername()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        rebuild();
+    }
+
+    // Picks up users created by other instances
+    @Scheduled(initialDelayString = "${users.existence-cache.refresh-interval-ms:600000}",
+            fixedDelayString = "${users.existence-cache.refresh-interval-ms:600000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long size = Math.max(expectedUsers, userRepository.count() * 2);
+        BloomFilter emailFilter = new BloomFilter(size, falsePositiveRate);
+        BloomFilter usernameFilter = new BloomFilter(size, falsePositiveRate);
+
+        AtomicLong loaded = new AtomicLong();
+        try (Stream<String> stream = userRepository.streamAllEmails()) {
+            stream.forEach(email -> emailFilter.put(normalize(email)));
+        }
+        try (Stream<String> stream = userRepository.streamAllUsernames()) {
+            stream.forEach(username -> {
+                usernameFilter.put(normalize(username));
+                loaded.incrementAndGet();
+            });
+        }
+
+        // Swap both in together. A registration that lands mid-rebuild may be missed until the next
+        // refresh; that only costs an insert that the unique constraint then rejects.
+        emails = emailFilter;
+        usernames = usernameFilter;
+        log.info("User existence cache loaded {} users in {} ms", loaded.get(), System.currentTimeMillis() - start);
+    }
+
+    // MySQL's default collation compares case-insensitively, so the filter must too
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
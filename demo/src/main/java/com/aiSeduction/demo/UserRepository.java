@@ -2,15 +2,43 @@
 package com.aiSeduction.demo;
 
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Read-only so they are served by the replica when DataSourceRoutingConfig is active;
+    // inside a read-write transaction they still run on the primary
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
     Optional<User> findByUsername(String username);
+    @Transactional(readOnly = true)
     Optional<User> findByTiktokId(String tiktokId);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    // Range scan on idx_users_tiktok_token_expiry, soonest first
+    @Query("select u.id from User u where u.tiktokTokenExpiry < :before and u.tiktokConnected = true"
+            + " and u.tiktokRefreshToken is not null order by u.tiktokTokenExpiry asc")
+    List<Long> findIdsWithTokenExpiringBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // Fetched in batches (needs useCursorFetch=true on MySQL) so warm-up doesn't hold every user in memory
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u where u.email is not null")
+    Stream<String> streamAllEmails();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.username from User u where u.username is not null")
+    Stream<String> streamAllUsernames();
 }
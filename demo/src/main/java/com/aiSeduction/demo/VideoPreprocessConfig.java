@@ -0,0 +1,23 @@
+package com.aiSeduction.demo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "video.preprocess")
+@Data
+public class VideoPreprocessConfig {
+    // Off by default: needs ffmpeg/ffprobe on the PATH
+    private boolean enabled = false;
+    // Content-addressed outputs, stored as <store-dir>/<first two hash chars>/<hash>.mp4
+    private Path storeDir = Path.of("video-store");
+    private String ffmpegPath = "ffmpeg";
+    private String ffprobePath = "ffprobe";
+    // 0 = one worker per core
+    private int parallelism = 0;
+    private Duration processTimeout = Duration.ofMinutes(30);
+}
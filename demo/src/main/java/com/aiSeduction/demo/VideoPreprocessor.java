@@ -0,0 +1,274 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Stage in front of the TikTok upload: probes and hashes the source and, if needed, remuxes or
+// transcodes it into a content-addressed store. A hash that is already in the store is not
+// processed again, and a hash already posted to an account is not uploaded again (unless TikTok
+// later reports that post as failed, see PublishStatusTracker).
+// Hashing and ffmpeg runs share a fork-join pool with one worker per core; ffmpeg is run
+// single-threaded so concurrent transcodes add up to the core count instead of oversubscribing.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VideoPreprocessor {
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    private static final List<String> ACCEPTED_VIDEO_CODECS = List.of("h264", "hevc");
+    private static final List<String> ACCEPTED_AUDIO_CODECS = List.of("aac", "mp3");
+
+    private final VideoPreprocessConfig config;
+    private final PostedContentRepository postedContentRepository;
+    private final ObjectMapper objectMapper;
+
+    private ForkJoinPool pool;
+
+    public record PreparedVideo(String contentHash, Path path) {
+    }
+
+    @PostConstruct
+    void init() {
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // Returns the file to upload; the source itself (and no hash) when preprocessing is off
+    public PreparedVideo prepare(Path source) {
+        if (!config.isEnabled()) {
+            return new PreparedVideo(null, source);
+        }
+        try {
+            return pool.submit(() -> prepareInPool(source)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while preparing " + source, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to prepare video " + source + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public Optional<PostedContent> findPosted(Long userId, PreparedVideo video) {
+        if (video.contentHash() == null) {
+            return Optional.empty();
+        }
+        return postedContentRepository.findByUserIdAndContentHash(userId, video.contentHash());
+    }
+
+    public void recordPosted(Long userId, PreparedVideo video, String publishId) {
+        if (video.contentHash() == null) {
+            return;
+        }
+        try {
+            postedContentRepository.save(new PostedContent(userId, video.contentHash(), publishId));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same content recorded it first; the upload itself still succeeded
+            log.debug("Content {} already recorded for user {}", video.contentHash(), userId);
+        }
+    }
+
+    // TikTok failed to publish it after all, so the content may be posted to this account again
+    public void forgetPosted(Long userId, String publishId) {
+        if (postedContentRepository.deleteByUserIdAndPublishId(userId, publishId) > 0) {
+            log.info("Content published as {} for user {} failed to publish; no longer deduplicated", publishId, userId);
+        }
+    }
+
+    private PreparedVideo prepareInPool(Path source) throws IOException, InterruptedException {
+        // The probe only reads container headers, so it is cheap to do before hashing
+        Plan plan = plan(source);
+        if (plan == Plan.KEEP) {
+            return keep(source);
+        }
+
+        String hash = sha256(source);
+        Path output = storePath(hash);
+        if (Files.exists(output)) {
+            log.debug("Video {} already processed as {}", source, hash);
+            return new PreparedVideo(hash, output);
+        }
+
+        Files.createDirectories(output.getParent());
+        // Written next to the final name and moved into place, so a crash never leaves a partial entry
+        Path staging = Files.createTempFile(output.getParent(), hash, ".part.mp4");
+        try {
+            if (plan == Plan.REMUX) {
+                ffmpeg(source, staging, "-c", "copy");
+            } else {
+                ffmpeg(source, staging, "-c:v", "libx264", "-preset", "veryfast",
+                        "-crf", "23", "-c:a", "aac", "-b:a", "128k");
+            }
+            Files.move(staging, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+        log.info("Video {} processed into store as {}", source, hash);
+        return new PreparedVideo(hash, output);
+    }
+
+    // Nothing to convert: the store entry is a hard link to the source, or a copy when the store is
+    // on another file system. Either way the file is read once, and the hash is taken from that read.
+    private PreparedVideo keep(Path source) throws IOException {
+        Files.createDirectories(config.getStoreDir());
+        Path staging = config.getStoreDir().resolve(UUID.randomUUID() + ".part.mp4");
+        try {
+            boolean linked;
+            try {
+                Files.createLink(staging, source);
+                linked = true;
+            } catch (IOException | UnsupportedOperationException e) {
+                linked = false;
+            }
+            String hash = linked ? sha256(staging) : copyWithDigest(source, staging);
+
+            Path output = storePath(hash);
+            if (Files.exists(output)) {
+                log.debug("Video {} already in store as {}", source, hash);
+                return new PreparedVideo(hash, output);
+            }
+            Files.createDirectories(output.getParent());
+            Files.move(staging, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Video {} {} into store as {}", source, linked ? "linked" : "copied", hash);
+            return new PreparedVideo(hash, output);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    // Streams the file through the digest in fixed-size reads; memory use is independent of file size
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Same digest as sha256(source), computed while copying it to target
+    static String copyWithDigest(Path source, Path target) throws IOException {
+        MessageDigest digest = newSha256();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Path storePath(String hash) {
+        return config.getStoreDir().resolve(hash.substring(0, 2)).resolve(hash + ".mp4");
+    }
+
+    private enum Plan {
+        KEEP, REMUX, TRANSCODE
+    }
+
+    // MP4 with codecs TikTok accepts is kept as is; accepted codecs in another container are remuxed
+    private Plan plan(Path source) throws IOException, InterruptedException {
+        String probe = run(List.of(config.getFfprobePath(), "-v", "error",
+                "-show_entries", "stream=codec_type,codec_name", "-show_entries", "format=format_name",
+                "-of", "json", source.toString()));
+        JsonNode json = objectMapper.readTree(probe);
+
+        boolean codecsAccepted = true;
+        boolean hasVideo = false;
+        for (JsonNode stream : json.path("streams")) {
+            String type = stream.path("codec_type").asText();
+            String codec = stream.path("codec_name").asText();
+            if ("video".equals(type)) {
+                hasVideo = true;
+                codecsAccepted &= ACCEPTED_VIDEO_CODECS.contains(codec);
+            } else if ("audio".equals(type)) {
+                codecsAccepted &= ACCEPTED_AUDIO_CODECS.contains(codec);
+            }
+        }
+        if (!hasVideo) {
+            throw new RuntimeException("No video stream in " + source);
+        }
+        if (!codecsAccepted) {
+            return Plan.TRANSCODE;
+        }
+        return json.path("format").path("format_name").asText().contains("mp4") ? Plan.KEEP : Plan.REMUX;
+    }
+
+    private void ffmpeg(Path source, Path target, String... codecArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(config.getFfmpegPath(), "-y", "-v", "error",
+                "-i", source.toString(), "-threads", "1"));
+        command.addAll(List.of(codecArgs));
+        command.addAll(List.of("-movflags", "+faststart", "-f", "mp4", target.toString()));
+        run(command);
+    }
+
+    private String run(List<String> command) throws IOException, InterruptedException {
+        // Output goes to a file rather than a pipe, so nothing blocks on reading it and the timeout
+        // below is the only wait; output is small either way (probe JSON or error text)
+        Path output = Files.createTempFile("video-preprocess", ".log");
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            if (!process.waitFor(config.getProcessTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly().waitFor(5, TimeUnit.SECONDS);
+                throw new RuntimeException(command.get(0) + " timed out after " + config.getProcessTimeout().toSeconds() + " s");
+            }
+            String text = new String(Files.readAllBytes(output));
+            if (process.exitValue() != 0) {
+                throw new RuntimeException(command.get(0) + " exited with " + process.exitValue() + ": " + text.strip());
+            }
+            return text;
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.aiSeduction.demo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// An open video file whose chunk regions are mapped once and shared. Every upload of the same
+// file uses the same chunk layout, so when one video goes to many accounts each region is
+// mapped (and paged in) once and each upload just gets its own read position over it.
+public class VideoSource implements AutoCloseable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final Map<Long, MappedByteBuffer> regions = new ConcurrentHashMap<>();
+
+    private VideoSource(Path path, FileChannel channel, long size) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    public static VideoSource open(Path videoFile) {
+        try {
+            FileChannel channel = FileChannel.open(videoFile, StandardOpenOption.READ);
+            return new VideoSource(videoFile.toAbsolutePath(), channel, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read video file: " + videoFile, e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    // Read-only view of [start, end) with its own position; safe to hand to concurrent uploads
+    public ByteBuffer region(long start, long end) throws IOException {
+        MappedByteBuffer mapped = regions.get(start);
+        if (mapped == null || mapped.capacity() != end - start) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            regions.put(start, mapped);
+        }
+        return mapped.duplicate();
+    }
+
+    @Override
+    public void close() {
+        regions.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close video file: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+-- Baseline for the tables previously created by Hibernate ddl-auto.
+-- Column types follow Hibernate's MySQLDialect mapping so ddl-auto=validate passes.
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255),
+    username varchar(255),
+    password varchar(255),
+    role enum ('USER','ADMIN'),
+    tiktok_id varchar(255),
+    tiktok_username varchar(255),
+    tiktok_access_token varchar(255),
+    tiktok_refresh_token varchar(255),
+    tiktok_token_expiry datetime(6),
+    tiktok_connected bit not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+-- Constraint names are matched by AuthService to report which field is taken
+alter table users add constraint uk_users_email unique (email);
+alter table users add constraint uk_users_username unique (username);
+-- Every TikTok login looks the user up by open id
+alter table users add constraint uk_users_tiktok_id unique (tiktok_id);
+-- TikTokTokenRefresher range-scans tokens that expire soon
+create index idx_users_tiktok_token_expiry on users (tiktok_token_expiry);
+
+create table scheduled_posts (
+    id bigint not null auto_increment,
+    user_id bigint,
+    video_path varchar(1024),
+    caption varchar(2200),
+    hashtags varchar(500),
+    caption_topic varchar(500),
+    caption_status enum ('PROVIDED','PENDING','GENERATED'),
+    scheduled_at datetime(6),
+    status enum ('PENDING','DISPATCHED','UPLOADED','FAILED'),
+    publish_id varchar(255),
+    last_error varchar(1024),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_scheduled_posts_status_time on scheduled_posts (status, scheduled_at);
+create index idx_scheduled_posts_caption_time on scheduled_posts (caption_status, scheduled_at);
+
+create table upload_sessions (
+    id bigint not null auto_increment,
+    user_id bigint,
+    file_path varchar(1024),
+    file_size bigint not null,
+    chunk_size bigint not null,
+    total_chunks integer not null,
+    publish_id varchar(255),
+    upload_url varchar(2048),
+    bytes_acknowledged bigint not null,
+    status enum ('INITIALIZED','UPLOADING','COMPLETED','FAILED'),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+-- file_path (1024 utf8mb4 chars) is too wide for an InnoDB key; user + size narrows resume lookups enough
+create index idx_upload_sessions_user_size on upload_sessions (user_id, file_size);
+
+create table pkce_states (
+    state varchar(64) not null,
+    code_verifier varchar(128) not null,
+    expires_at datetime(6),
+    primary key (state)
+) engine=InnoDB;
+
+create index idx_pkce_states_expires_at on pkce_states (expires_at);
+
+create table revoked_tokens (
+    token_id varchar(64) not null,
+    user_id bigint,
+    expires_at datetime(6),
+    revoked_at datetime(6),
+    primary key (token_id)
+) engine=InnoDB;
+
+create index idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
@@ -0,0 +1,11 @@
+-- Content hashes already posted per account, so re-posting the same clip is skipped
+create table posted_content (
+    id bigint not null auto_increment,
+    user_id bigint,
+    content_hash varchar(64) not null,
+    publish_id varchar(255),
+    posted_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table posted_content add constraint uk_posted_content_user_hash unique (user_id, content_hash);
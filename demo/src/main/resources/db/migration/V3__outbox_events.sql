@@ -0,0 +1,26 @@
+-- Durable queue of TikTok calls (uploads, publish-status checks) drained by OutboxRelay
+create table outbox_events (
+    id bigint not null auto_increment,
+    type enum ('UPLOAD_POST','PUBLISH_STATUS'),
+    aggregate_id bigint,
+    user_id bigint,
+    idempotency_key varchar(128) not null,
+    payload varchar(2048),
+    status enum ('PENDING','IN_FLIGHT','DONE','DEAD'),
+    attempts integer not null,
+    next_attempt_at datetime(6),
+    last_error varchar(1024),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table outbox_events add constraint uk_outbox_events_idempotency_key unique (idempotency_key);
+-- Relay scan: due PENDING events and IN_FLIGHT events whose lease expired
+create index idx_outbox_events_status_next on outbox_events (status, next_attempt_at);
+
+-- Posts accepted before the outbox existed get their upload event here
+insert into outbox_events (type, aggregate_id, user_id, idempotency_key, status, attempts, next_attempt_at, created_at, updated_at)
+select 'UPLOAD_POST', id, user_id, concat('upload-post:', id), 'PENDING', 0, scheduled_at, created_at, updated_at
+from scheduled_posts
+where status in ('PENDING', 'DISPATCHED');
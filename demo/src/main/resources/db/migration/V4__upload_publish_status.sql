@@ -0,0 +1,5 @@
+-- Publish outcome reported by TikTok after the upload, tracked by PublishStatusTracker
+alter table upload_sessions add column publish_status varchar(64);
+
+-- Lets the tracker reload uploads still awaiting their outcome after a restart
+create index idx_upload_sessions_status_updated on upload_sessions (status, updated_at);
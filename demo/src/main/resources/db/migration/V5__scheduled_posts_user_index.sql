@@ -0,0 +1,2 @@
+-- Lets users list their own scheduled posts, e.g. to copy a generated caption into the inbox draft
+create index idx_scheduled_posts_user_time on scheduled_posts (user_id, scheduled_at);
@@ -0,0 +1,78 @@
+package com.aiSeduction.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountRateLimiterTest {
+
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    private final Executor rejecting = task -> {
+        throw new RejectedExecutionException("full");
+    };
+
+    private AccountRateLimiter limiter(int uploadsPerWindow, Duration window) {
+        TikTokUploadConfig config = new TikTokUploadConfig();
+        config.getRateLimit().setUploadsPerWindow(uploadsPerWindow);
+        config.getRateLimit().setWindow(window);
+        scheduler.initialize();
+        return new AccountRateLimiter(config, scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void runsImmediatelyWithinQuota() {
+        AccountRateLimiter limiter = limiter(2, Duration.ofMinutes(1));
+        AtomicInteger ran = new AtomicInteger();
+
+        limiter.runWhenAllowed(1L, Runnable::run, ran::incrementAndGet, rejected -> { });
+        limiter.runWhenAllowed(1L, Runnable::run, ran::incrementAndGet, rejected -> { });
+
+        assertThat(ran).hasValue(2);
+    }
+
+    @Test
+    void reportsHowLongADeferredTaskWaits() {
+        AccountRateLimiter limiter = limiter(1, Duration.ofMinutes(1));
+
+        assertThat(limiter.runWhenAllowed(1L, Runnable::run, () -> { }, rejected -> { })).isZero();
+        assertThat(limiter.runWhenAllowed(1L, Runnable::run, () -> { }, rejected -> { }))
+                .isPositive()
+                .isLessThanOrEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void immediateRejectionGoesToTheCallback() {
+        AccountRateLimiter limiter = limiter(1, Duration.ofMinutes(1));
+        AtomicInteger rejections = new AtomicInteger();
+
+        limiter.runWhenAllowed(1L, rejecting, () -> { }, rejected -> rejections.incrementAndGet());
+
+        assertThat(rejections).hasValue(1);
+    }
+
+    @Test
+    void deferredRejectionIsNotLostOnTheSchedulerThread() throws Exception {
+        AccountRateLimiter limiter = limiter(1, Duration.ofMillis(200));
+        limiter.runWhenAllowed(1L, Runnable::run, () -> { }, rejected -> { });
+
+        CompletableFuture<RejectedExecutionException> rejection = new CompletableFuture<>();
+        limiter.runWhenAllowed(1L, rejecting, () -> { }, rejection::complete);
+
+        assertThat(rejection.get(5, TimeUnit.SECONDS)).hasMessage("full");
+    }
+}
@@ -0,0 +1,194 @@
+package com.aiSeduction.demo;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs DownstreamGuard, wired into the production Apache client setup, against a local fake
+// that can be switched between failing, slow and healthy
+class DownstreamGuardTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long delayMs = 0;
+
+    private OutboundHttpProperties properties;
+    private DownstreamGuard guard;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private String url;
+
+    @BeforeEach
+    void startFakeDownstream() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v2/post/publish/", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        // Requests that timed out on our side keep sleeping here; they must not hold up the next one
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/v2/post/publish/status/fetch/";
+
+        properties = new OutboundHttpProperties();
+        properties.setResponseTimeout(Duration.ofSeconds(2));
+        OutboundHttpProperties.Resilience resilience = properties.getResilience();
+        resilience.setWindowSize(10);
+        resilience.setMinimumCalls(5);
+        resilience.setOpenDuration(Duration.ofMillis(300));
+        resilience.setHalfOpenCalls(2);
+        resilience.setMinTimeout(Duration.ofMillis(10));
+        resilience.setLatencySamples(32);
+        resilience.setMinLatencySamples(10);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        guard = new DownstreamGuard(properties, new HostConcurrencyLimiter(properties), new OutboundMetrics(meterRegistry));
+
+        OutboundHttpConfig config = new OutboundHttpConfig();
+        httpClient = config.outboundHttpClient(config.outboundConnectionManager(properties, meterRegistry),
+                properties, meterRegistry);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("outboundHttpClient", httpClient);
+        ClientHttpRequestFactory requestFactory = config.outboundRequestFactory(properties,
+                beans.getBeanProvider(CloseableHttpClient.class), guard);
+        restTemplate = config.restTemplate(new RestTemplateBuilder(), requestFactory, guard);
+    }
+
+    @AfterEach
+    void stopFakeDownstream() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void opensAfterFailuresAndRejectsWithoutCallingDownstream() {
+        status = 503;
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> restTemplate.postForEntity(url, "{}", String.class))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(guard.state(URI.create(url))).isEqualTo(CircuitBreaker.State.OPEN);
+
+        int before = hits.get();
+        assertThatThrownBy(() -> restTemplate.postForEntity(url, "{}", String.class))
+                .isInstanceOfSatisfying(CircuitOpenException.class, e -> {
+                    assertThat(e.getEndpoint()).isEqualTo("localhost/v2/post/publish/status/fetch/");
+                    assertThat(e.getRetryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofMillis(300));
+                });
+        assertThat(hits.get()).isEqualTo(before);
+    }
+
+    @Test
+    void closesAgainAfterSuccessfulTrialCalls() throws Exception {
+        status = 500;
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> restTemplate.postForEntity(url, "{}", String.class));
+        }
+        assertThat(guard.state(URI.create(url))).isEqualTo(CircuitBreaker.State.OPEN);
+
+        status = 200;
+        Thread.sleep(350);
+        restTemplate.postForEntity(url, "{}", String.class);
+        assertThat(guard.state(URI.create(url))).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        restTemplate.postForEntity(url, "{}", String.class);
+        assertThat(guard.state(URI.create(url))).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenTrialsWithoutAnOutcomeAreGivenBack() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(properties.getResilience(), now::get);
+        for (int i = 0; i < 5; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+        now.addAndGet(Duration.ofMillis(400).toNanos());
+
+        // e.g. no host permit: more attempts than half-open-calls, none of them reaching the downstream
+        for (int i = 0; i < 5; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.release();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() {
+        status = 400;
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> restTemplate.postForEntity(url, "{}", String.class));
+        }
+        assertThat(guard.state(URI.create(url))).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void timeoutFollowsObservedLatencyWithinBounds() {
+        URI uri = URI.create(url);
+        assertThat(guard.timeoutFor(uri)).isEqualTo(Duration.ofSeconds(2));
+        // Only the timeout is under test here; keep the breaker from opening on the timed-out calls
+        properties.getResilience().setFailureRateThreshold(1.0);
+
+        delayMs = 20;
+        for (int i = 0; i < 10; i++) {
+            restTemplate.postForEntity(url, "{}", String.class);
+        }
+        Duration adaptive = guard.timeoutFor(uri);
+        assertThat(adaptive).isGreaterThanOrEqualTo(Duration.ofMillis(60)).isLessThan(Duration.ofSeconds(2));
+
+        // The downstream slows down past the adaptive timeout. Each timed-out call is recorded at the
+        // time it gave up, so the timeout climbs until it is capped at the configured response timeout
+        delayMs = 800;
+        int timedOut = 0;
+        for (int i = 0; i < 6; i++) {
+            try {
+                restTemplate.postForEntity(url, "{}", String.class);
+            } catch (ResourceAccessException e) {
+                timedOut++;
+            }
+        }
+        assertThat(timedOut).isPositive();
+        assertThat(guard.timeoutFor(uri)).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void hostPermitIsReleasedAfterEachCall() {
+        HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(properties);
+        DownstreamGuard guarded = new DownstreamGuard(properties, limiter, new OutboundMetrics(new SimpleMeterRegistry()));
+        RestTemplate template = new OutboundHttpConfig().restTemplate(new RestTemplateBuilder(),
+                restTemplate.getRequestFactory(), guarded);
+
+        template.postForEntity(url, "{}", String.class);
+        status = 503;
+        assertThatThrownBy(() -> template.postForEntity(url, "{}", String.class));
+
+        assertThat(limiter.inFlight("localhost")).isZero();
+    }
+}
@@ -0,0 +1,98 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs GeminiClient.stream against a local fake of streamGenerateContent?alt=sse
+class GeminiStreamingTest {
+
+    private static final List<String> CHUNKS = List.of(
+            "Nice opener. Sco",
+            "re: 15/20\nFeedback: confident and playful.\nCorrected/Improved",
+            " Version:\n**Option 1 (Bolder):** \"You look like you",
+            " know the best taco truck in town.\"\n");
+
+    private HttpServer server;
+    private final AtomicReference<String> requestPath = new AtomicReference<>();
+    private final AtomicReference<String> apiKey = new AtomicReference<>();
+    private GeminiClient client;
+
+    @BeforeEach
+    void startFakeGemini() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1beta/models/", exchange -> {
+            requestPath.set(exchange.getRequestURI().toString());
+            apiKey.set(exchange.getRequestHeaders().getFirst("x-goog-api-key"));
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String chunk : CHUNKS) {
+                    String text = chunk.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+                    String event = "data: {\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"" + text
+                            + "\"}], \"role\": \"model\"}}]}\r\n\r\n";
+                    out.write(event.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        server.start();
+
+        GeminiConfig config = new GeminiConfig();
+        config.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/v1beta/models/");
+        client = new GeminiClient(new RestTemplate(), config, new ObjectMapper(),
+                new OutboundMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(client, "geminiApiKey", "test-key");
+    }
+
+    @AfterEach
+    void stopFakeGemini() {
+        server.stop(0);
+    }
+
+    @Test
+    void relaysEachEventAsItArrives() {
+        List<String> received = new ArrayList<>();
+
+        String full = client.stream("Evaluate this", received::add);
+
+        assertThat(received).containsExactlyElementsOf(CHUNKS);
+        assertThat(full).isEqualTo(String.join("", CHUNKS));
+        assertThat(requestPath.get()).isEqualTo("/v1beta/models/gemini-1.5-flash:streamGenerateContent?alt=sse");
+        assertThat(apiKey.get()).isEqualTo("test-key");
+    }
+
+    @Test
+    void extractsScoreAndCorrectionIncrementally() {
+        EvaluationStreamParser parser = new EvaluationStreamParser();
+        List<Integer> completedAt = new ArrayList<>();
+
+        client.stream("Evaluate this", chunk -> {
+            if (parser.accept(chunk)) {
+                completedAt.add(parser.getText().length());
+            }
+        });
+        parser.finish();
+
+        // Score is split across the first two chunks, the option across the last two
+        assertThat(parser.getScore()).contains(15);
+        assertThat(parser.getCorrection()).contains("You look like you know the best taco truck in town.");
+        assertThat(completedAt).hasSize(2);
+        assertThat(completedAt.get(0)).isLessThan(parser.getText().length());
+    }
+}
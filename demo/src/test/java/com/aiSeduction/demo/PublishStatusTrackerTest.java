@@ -0,0 +1,243 @@
+package com.aiSeduction.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+// Drives track/tick against a mocked status endpoint; the outbound executor runs batches inline
+class PublishStatusTrackerTest {
+
+    private static final String STATUS_URL = "https://open.tiktokapis.com/v2/post/publish/status/fetch/";
+    private static final Duration MIN = Duration.ofSeconds(5);
+    private static final Duration MAX = Duration.ofMinutes(5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+    private final VideoPreprocessor videoPreprocessor = mock(VideoPreprocessor.class);
+
+    // publish id -> status the fake endpoint answers with, and the (token, publish id) of every call
+    private final Map<String, String> statuses = new ConcurrentHashMap<>();
+    private final List<String> calls = new ArrayList<>();
+
+    private MockRestServiceServer server;
+    private PublishStatusTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        server.expect(ExpectedCount.manyTimes(), requestTo(STATUS_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(request -> {
+                    JsonNode body = objectMapper.readTree(((MockClientHttpRequest) request).getBodyAsString());
+                    String publishId = body.path("publish_id").asText();
+                    calls.add(request.getHeaders().getFirst("Authorization") + " " + publishId);
+                    if (publishId.startsWith("gone")) {
+                        return withStatus(HttpStatus.NOT_FOUND).createResponse(request);
+                    }
+                    String json = "{\"data\": {\"status\": \"" + statuses.getOrDefault(publishId, "PROCESSING_UPLOAD")
+                            + "\"}, \"error\": {\"code\": \"ok\"}}";
+                    return withSuccess(json, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        for (long userId = 1; userId <= 2; userId++) {
+            User user = new User();
+            user.setId(userId);
+            user.setTiktokAccessToken("token-" + userId);
+            when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        }
+
+        tracker = new PublishStatusTracker(restTemplate, new TikTokUploadConfig(), userRepository,
+                uploadSessionRepository, videoPreprocessor, new TaskExecutorAdapter(Runnable::run),
+                new OutboundMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "requestsPerSecond", 100);
+        ReflectionTestUtils.setField(tracker, "perUserRequestsPerMinute", 30);
+        // Zero minimum interval so freshly tracked posts are due on the next tick
+        ReflectionTestUtils.setField(tracker, "minInterval", Duration.ZERO);
+        ReflectionTestUtils.setField(tracker, "maxInterval", Duration.ZERO);
+        ReflectionTestUtils.setField(tracker, "ageFactor", 0.2);
+        ReflectionTestUtils.setField(tracker, "maxAge", Duration.ofHours(24));
+        ReflectionTestUtils.setField(tracker, "sseTimeout", Duration.ofMinutes(1));
+        tracker.init();
+    }
+
+    private static UploadSession session(long id, long userId, String publishId) {
+        UploadSession session = new UploadSession();
+        session.setId(id);
+        session.setUserId(userId);
+        session.setPublishId(publishId);
+        session.setStatus(UploadSession.Status.COMPLETED);
+        session.setUpdatedAt(LocalDateTime.now());
+        return session;
+    }
+
+    @Test
+    void pollsEachUsersDuePostsAsOneBatchWithThatUsersToken() {
+        tracker.track(session(1, 1, "a1"));
+        tracker.track(session(2, 1, "a2"));
+        tracker.track(session(3, 2, "b1"));
+
+        tracker.tick();
+
+        assertThat(calls).containsExactlyInAnyOrder("Bearer token-1 a1", "Bearer token-1 a2", "Bearer token-2 b1");
+        // One user lookup per batch, not per post
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findById(2L);
+        assertThat(tracker.trackedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void respectsThePerTokenQuotaWithoutStarvingOtherUsers() {
+        ReflectionTestUtils.setField(tracker, "perUserRequestsPerMinute", 2);
+        for (int i = 0; i < 5; i++) {
+            tracker.track(session(i, 1, "a" + i));
+        }
+        tracker.track(session(10, 2, "b1"));
+
+        tracker.tick();
+
+        assertThat(calls.stream().filter(call -> call.startsWith("Bearer token-1"))).hasSize(2);
+        assertThat(calls).contains("Bearer token-2 b1");
+    }
+
+    @Test
+    void stopsWithinTheGlobalRequestBudget() {
+        ReflectionTestUtils.setField(tracker, "requestsPerSecond", 3);
+        tracker.init();
+        for (int i = 0; i < 10; i++) {
+            tracker.track(session(i, 1 + i % 2, "p" + i));
+        }
+
+        tracker.tick();
+
+        assertThat(calls).hasSize(3);
+    }
+
+    @Test
+    void untracksOnFinalStatusAndPersistsTheChange() {
+        tracker.track(session(1, 1, "done"));
+        tracker.track(session(2, 1, "failed"));
+        tracker.track(session(3, 1, "busy"));
+        statuses.put("done", "PUBLISH_COMPLETE");
+        statuses.put("failed", "FAILED");
+
+        tracker.tick();
+
+        assertThat(tracker.inFlight(1L)).extracting(PublishStatusTracker.Update::publishId).containsExactly("busy");
+        verify(uploadSessionRepository).updatePublishStatus(1L, "PUBLISH_COMPLETE");
+        verify(uploadSessionRepository).updatePublishStatus(2L, "FAILED");
+        verify(videoPreprocessor).forgetPosted(1L, "failed");
+        verify(videoPreprocessor, never()).forgetPosted(1L, "done");
+    }
+
+    @Test
+    void stopsPollingOnceTheDraftIsInTheUsersInbox() {
+        tracker.track(session(1, 1, "inbox"));
+        statuses.put("inbox", "SEND_TO_USER_INBOX");
+
+        tracker.tick();
+        tracker.tick();
+
+        assertThat(tracker.trackedCount()).isZero();
+        assertThat(calls).hasSize(1);
+        verify(uploadSessionRepository).updatePublishStatus(1L, "SEND_TO_USER_INBOX");
+        verify(videoPreprocessor, never()).forgetPosted(any(), any());
+    }
+
+    @Test
+    void dropsPostsTheStatusEndpointRejects() {
+        tracker.track(session(1, 1, "gone-1"));
+
+        tracker.tick();
+
+        assertThat(tracker.trackedCount()).isZero();
+    }
+
+    @Test
+    void givesUpOnFailingChecksAfterMaxAge() {
+        UploadSession old = session(1, 1, "p1");
+        old.setUpdatedAt(LocalDateTime.now().minusHours(25));
+        tracker.track(old);
+        statuses.clear();
+        server.reset();
+        server.expect(ExpectedCount.manyTimes(), requestTo(STATUS_URL))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        tracker.tick();
+
+        assertThat(tracker.trackedCount()).isZero();
+    }
+
+    @Test
+    void resumesUploadsStillAwaitingTheirOutcome() {
+        when(uploadSessionRepository.findAwaitingPublish(eq(UploadSession.Status.COMPLETED), any(), anyCollection()))
+                .thenReturn(List.of(session(1, 1, "a1"), session(2, 2, "b1")));
+
+        tracker.resume();
+        tracker.tick();
+
+        assertThat(tracker.trackedCount()).isEqualTo(2);
+        assertThat(calls).hasSize(2);
+    }
+
+    private static Duration intervalAt(Duration age) {
+        return PublishStatusTracker.interval(age, MIN, MAX, 0.2);
+    }
+
+    @Test
+    void freshPostsArePolledAtTheMinimumInterval() {
+        assertThat(intervalAt(Duration.ZERO)).isEqualTo(MIN);
+        assertThat(intervalAt(Duration.ofSeconds(20))).isEqualTo(MIN);
+    }
+
+    @Test
+    void intervalGrowsWithAge() {
+        assertThat(intervalAt(Duration.ofMinutes(1))).isEqualTo(Duration.ofSeconds(12));
+        assertThat(intervalAt(Duration.ofMinutes(10))).isEqualTo(Duration.ofMinutes(2));
+    }
+
+    @Test
+    void intervalIsCappedForOldPosts() {
+        assertThat(intervalAt(Duration.ofHours(3))).isEqualTo(MAX);
+    }
+
+    @Test
+    void clockSkewDoesNotProduceANegativeInterval() {
+        assertThat(intervalAt(Duration.ofMinutes(-1))).isEqualTo(MIN);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aiSeduction.demo;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two in-memory H2 databases stand in for the MySQL primary and replica; each one records
+// its own name so a query shows which side served it.
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        DataSource routing = DataSourceRoutingConfig.routing(primary, replica);
+
+        jdbc = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        String database = readOnly.execute(status -> whichDatabase());
+        assertThat(database).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionsUseThePrimary() {
+        String database = readWrite.execute(status -> whichDatabase());
+        assertThat(database).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyCallInsideReadWriteTransactionStaysOnPrimary() {
+        String database = readWrite.execute(status -> readOnly.execute(inner -> whichDatabase()));
+        assertThat(database).isEqualTo("primary");
+    }
+
+    @Test
+    void workOutsideTransactionsUsesThePrimary() {
+        assertThat(whichDatabase()).isEqualTo("primary");
+    }
+
+    private String whichDatabase() {
+        return jdbc.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(16))");
+        jdbc.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+}
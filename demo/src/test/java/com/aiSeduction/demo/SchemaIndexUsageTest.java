@@ -0,0 +1,67 @@
+package com.aiSeduction.demo;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Applies the Flyway migrations to H2 (MySQL mode) and checks that the hot lookups are
+// planned as index seeks. H2 prints "tableScan" in the plan when no index applies.
+class SchemaIndexUsageTest {
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void findByTiktokIdUsesUniqueIndex() {
+        assertThat(plan("select * from users where tiktok_id = 'open-id'"))
+                .containsIgnoringCase("uk_users_tiktok_id")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void findByEmailUsesUniqueIndex() {
+        assertThat(plan("select * from users where email = 'someone@example.com'"))
+                .containsIgnoringCase("uk_users_email")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void tokenExpiryScanUsesExpiryIndex() {
+        assertThat(plan("select id from users where tiktok_token_expiry < timestamp '2030-01-01 00:00:00'"
+                + " and tiktok_connected = true and tiktok_refresh_token is not null order by tiktok_token_expiry"))
+                .containsIgnoringCase("idx_users_tiktok_token_expiry")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void dueScheduledPostsUseStatusTimeIndex() {
+        assertThat(plan("select * from scheduled_posts where status = 'PENDING'"
+                + " and scheduled_at <= timestamp '2030-01-01 00:00:00' order by scheduled_at"))
+                .containsIgnoringCase("idx_scheduled_posts_status_time")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void usersScheduledPostsUseUserTimeIndex() {
+        assertThat(plan("select * from scheduled_posts where user_id = 1 order by scheduled_at desc limit 50"))
+                .containsIgnoringCase("idx_scheduled_posts_user_time")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    private String plan(String sql) {
+        return jdbc.queryForObject("explain " + sql, String.class);
+    }
+}
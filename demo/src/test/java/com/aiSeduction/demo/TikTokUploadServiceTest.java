@@ -0,0 +1,208 @@
+package com.aiSeduction.demo;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Runs the chunked upload against a local fake of TikTok's init and chunk endpoints, with the
+// upload sessions kept in memory behind a mocked repository
+class TikTokUploadServiceTest {
+
+    private static final long MB = 1024 * 1024;
+    // Three chunks at the 5 MB minimum: 0-5, 5-10 and 10-16 MB, the last one absorbing the remainder
+    private static final long FILE_SIZE = 16 * MB;
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final AtomicInteger inits = new AtomicInteger();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    // Chunk start offset the fake answers with a 500 once, or -1
+    private final AtomicLong failChunkAt = new AtomicLong(-1);
+
+    private final List<UploadSession> sessions = new CopyOnWriteArrayList<>();
+    private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+    private final PublishStatusTracker publishStatusTracker = mock(PublishStatusTracker.class);
+
+    private CloseableHttpClient httpClient;
+    private TikTokUploadService uploadService;
+    private Path video;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String base = "http://localhost:" + server.getAddress().getPort();
+        server.createContext("/init", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int n = inits.incrementAndGet();
+            byte[] body = ("{\"data\": {\"publish_id\": \"publish-" + n + "\", \"upload_url\": \"" + base + "/upload/" + n
+                    + "\"}, \"error\": {\"code\": \"ok\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/upload/", exchange -> {
+            long received = exchange.getRequestBody().readAllBytes().length;
+            String range = exchange.getRequestHeaders().getFirst("Content-Range");
+            long start = Long.parseLong(range.substring("bytes ".length(), range.indexOf('-')));
+            if (failChunkAt.compareAndSet(start, -1)) {
+                exchange.sendResponseHeaders(500, -1);
+            } else {
+                ranges.add(exchange.getRequestURI().getPath() + " " + range + " " + received);
+                exchange.sendResponseHeaders(206, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        TikTokUploadConfig uploadConfig = new TikTokUploadConfig();
+        uploadConfig.setInitUrl(base + "/init");
+        uploadConfig.setChunkSize(TikTokUploadService.MIN_CHUNK_SIZE);
+
+        OutboundHttpProperties properties = new OutboundHttpProperties();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboundMetrics metrics = new OutboundMetrics(meterRegistry);
+        DownstreamGuard guard = new DownstreamGuard(properties, new HostConcurrencyLimiter(properties), metrics);
+        OutboundHttpConfig config = new OutboundHttpConfig();
+        httpClient = config.outboundHttpClient(config.outboundConnectionManager(properties, meterRegistry),
+                properties, meterRegistry);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("outboundHttpClient", httpClient);
+        ClientHttpRequestFactory requestFactory = config.outboundRequestFactory(properties,
+                beans.getBeanProvider(CloseableHttpClient.class), guard);
+        RestTemplate restTemplate = config.restTemplate(new RestTemplateBuilder(), requestFactory, guard);
+
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            if (session.getId() == null) {
+                session.setId((long) sessions.size() + 1);
+                sessions.add(session);
+            }
+            return session;
+        });
+        when(uploadSessionRepository.findFirstByUserIdAndFilePathAndFileSizeAndStatusInOrderByUpdatedAtDesc(
+                anyLong(), anyString(), anyLong(), anyCollection())).thenAnswer(invocation -> {
+            Collection<UploadSession.Status> statuses = invocation.getArgument(3);
+            return sessions.stream()
+                    .filter(session -> session.getUserId().equals(invocation.getArgument(0))
+                            && session.getFilePath().equals(invocation.getArgument(1))
+                            && session.getFileSize() == (long) invocation.getArgument(2)
+                            && statuses.contains(session.getStatus()))
+                    .max(Comparator.comparing(UploadSession::getUpdatedAt));
+        });
+
+        uploadService = new TikTokUploadService(uploadConfig, uploadSessionRepository, restTemplate, requestFactory,
+                metrics, guard, publishStatusTracker);
+
+        video = tempDir.resolve("video.mp4");
+        Files.write(video, new byte[(int) FILE_SIZE]);
+        user = new User();
+        user.setId(1L);
+        user.setTiktokAccessToken("token");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private static String chunk(int upload, long start, long end) {
+        return "/upload/" + upload + " bytes " + start + "-" + (end - 1) + "/" + FILE_SIZE + " " + (end - start);
+    }
+
+    @Test
+    void uploadsEveryChunkAndHandsThePublishToTheTracker() {
+        UploadSession session = uploadService.uploadVideo(user, video);
+
+        assertThat(inits).hasValue(1);
+        assertThat(ranges).containsExactly(chunk(1, 0, 5 * MB), chunk(1, 5 * MB, 10 * MB), chunk(1, 10 * MB, FILE_SIZE));
+        assertThat(session.getStatus()).isEqualTo(UploadSession.Status.COMPLETED);
+        assertThat(session.getBytesAcknowledged()).isEqualTo(FILE_SIZE);
+        assertThat(session.getPublishId()).isEqualTo("publish-1");
+        verify(publishStatusTracker).track(session);
+    }
+
+    @Test
+    void resumesAfterAFailedChunkWithoutResendingAcknowledgedBytes() {
+        failChunkAt.set(5 * MB);
+
+        assertThatThrownBy(() -> uploadService.uploadVideo(user, video))
+                .hasMessageContaining("interrupted at byte " + 5 * MB);
+        assertThat(sessions).singleElement().satisfies(session -> {
+            assertThat(session.getStatus()).isEqualTo(UploadSession.Status.UPLOADING);
+            assertThat(session.getBytesAcknowledged()).isEqualTo(5 * MB);
+        });
+        verify(publishStatusTracker, never()).track(any());
+
+        UploadSession resumed = uploadService.uploadVideo(user, video);
+
+        assertThat(inits).hasValue(1);
+        assertThat(resumed.getId()).isEqualTo(1L);
+        assertThat(resumed.getStatus()).isEqualTo(UploadSession.Status.COMPLETED);
+        assertThat(ranges).containsExactly(chunk(1, 0, 5 * MB), chunk(1, 5 * MB, 10 * MB), chunk(1, 10 * MB, FILE_SIZE));
+    }
+
+    @Test
+    void expiredSessionIsFailedAndTheUploadStartsOver() {
+        failChunkAt.set(5 * MB);
+        assertThatThrownBy(() -> uploadService.uploadVideo(user, video));
+        UploadSession expired = sessions.get(0);
+        // Past the upload URL's validity, so its upload_url no longer accepts chunks
+        expired.setCreatedAt(LocalDateTime.now().minusHours(2));
+
+        UploadSession fresh = uploadService.uploadVideo(user, video);
+
+        assertThat(expired.getStatus()).isEqualTo(UploadSession.Status.FAILED);
+        assertThat(inits).hasValue(2);
+        assertThat(fresh.getId()).isEqualTo(2L);
+        assertThat(fresh.getPublishId()).isEqualTo("publish-2");
+        assertThat(fresh.getStatus()).isEqualTo(UploadSession.Status.COMPLETED);
+        assertThat(ranges).containsExactly(chunk(1, 0, 5 * MB),
+                chunk(2, 0, 5 * MB), chunk(2, 5 * MB, 10 * MB), chunk(2, 10 * MB, FILE_SIZE));
+    }
+
+    @Test
+    void emptyFilesAreRejectedBeforeAnyRequest() throws Exception {
+        Path empty = Files.createFile(tempDir.resolve("empty.mp4"));
+
+        assertThatThrownBy(() -> uploadService.uploadVideo(user, empty)).hasMessageContaining("empty");
+        assertThat(inits).hasValue(0);
+        assertThat(sessions).isEmpty();
+    }
+}
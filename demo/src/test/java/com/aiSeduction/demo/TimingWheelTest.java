@@ -0,0 +1,139 @@
+package com.aiSeduction.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Small wheels (4 slots per level) so a few hundred ticks exercise every level, the cascades
+// between them and entries parked beyond the top level's range
+class TimingWheelTest {
+
+    private static final long START = 1_000;
+
+    // Advances one millisecond at a time and records the time each entry fired at
+    private static Map<Integer, Long> runUntil(TimingWheel<Integer> wheel, long endMs) {
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = START + 1; now <= endMs; now++) {
+            long at = now;
+            wheel.advance(now, id -> assertThat(firedAt.put(id, at)).isNull());
+        }
+        return firedAt;
+    }
+
+    @Test
+    void firesAtTheDeadlineAndNotBefore() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 3, START);
+        wheel.add(1, START + 10);
+        // Rounded up to the next tick
+        wheel.add(2, START + 11);
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(START + 19, fired::add);
+        assertThat(fired).containsExactly(1);
+
+        wheel.advance(START + 20, fired::add);
+        assertThat(fired).containsExactly(1, 2);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rejectsDeadlinesThatHavePassed() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 3, START);
+
+        assertThat(wheel.add(1, START - 1)).isFalse();
+        assertThat(wheel.add(2, START)).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void entriesInHigherLevelsCascadeDownAndFireOnTime() {
+        // Levels cover 4, 16 and 64 ticks
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 3, START);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int delay = 1; delay <= 64; delay++) {
+            deadlines.put(delay, START + delay);
+            assertThat(wheel.add(delay, START + delay)).isTrue();
+        }
+
+        assertThat(runUntil(wheel, START + 64)).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void entriesBeyondTheTopLevelAreParkedUntilInRange() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 2, START);
+        // The wheel spans 16 ticks; these go round several times before they are due
+        wheel.add(1, START + 17);
+        wheel.add(2, START + 50);
+        wheel.add(3, START + 200);
+
+        assertThat(runUntil(wheel, START + 200))
+                .containsEntry(1, START + 17)
+                .containsEntry(2, START + 50)
+                .containsEntry(3, START + 200);
+    }
+
+    @Test
+    void aSingleLevelWheelStillFiresLongDelaysOnTime() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 1, START);
+        wheel.add(1, START + 3);
+        wheel.add(2, START + 9);
+
+        assertThat(runUntil(wheel, START + 9)).containsEntry(1, START + 3).containsEntry(2, START + 9);
+    }
+
+    @Test
+    void overdueEntriesComeOutInDeadlineOrderAfterAJump() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 3, START);
+        wheel.add(3, START + 40);
+        wheel.add(1, START + 2);
+        wheel.add(2, START + 17);
+        wheel.add(4, START + 90);
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(START + 50, fired::add);
+
+        assertThat(fired).containsExactly(1, 2, 3);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesAddedWhileRunningFireOnTime() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 3, START);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Map<Integer, Long> firedAt = new HashMap<>();
+        int next = 0;
+        for (long now = START + 1; now <= START + 500; now++) {
+            long at = now;
+            wheel.advance(now, id -> firedAt.put(id, at));
+            // Adds land at every offset against the current slot of each level
+            for (int i = 0; i < 3; i++) {
+                long deadline = now + 1 + random.nextInt(150);
+                deadlines.put(next, deadline);
+                wheel.add(next++, deadline);
+            }
+        }
+        for (long now = START + 501; now <= START + 700; now++) {
+            long at = now;
+            wheel.advance(now, id -> firedAt.put(id, at));
+        }
+
+        assertThat(firedAt).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void invalidDimensionsAreRejected() {
+        assertThatThrownBy(() -> new TimingWheel<Integer>(0, 4, 1, START)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel<Integer>(1, 1, 1, START)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel<Integer>(1, 4, 0, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
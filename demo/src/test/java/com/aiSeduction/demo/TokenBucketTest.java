@@ -0,0 +1,41 @@
+package com.aiSeduction.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenBucket bucket = new TokenBucket(6, Duration.ofMinutes(1), now::get);
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        for (int i = 0; i < 6; i++) {
+            assertThat(bucket.tryAcquire()).isTrue();
+        }
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillsContinuously() {
+        for (int i = 0; i < 6; i++) {
+            bucket.tryAcquire();
+        }
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void reservationsAreSpacedAtTheRefillRate() {
+        for (int i = 0; i < 6; i++) {
+            assertThat(bucket.reserve()).isZero();
+        }
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofSeconds(20));
+    }
+}